@@ -0,0 +1,97 @@
+package minidisc;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import static minidisc.MiniDiscFormat.SECTORS_PER_CLUSTER;
+
+/**
+ * Deterministic inputs shared by the benchmarks (fixed seeds: same data on every run).
+ */
+final class BenchData {
+
+    private BenchData() {
+    }
+
+    static void fill(byte[] b, long seed) {
+        new SplittableRandom(seed).nextBytes(b);
+    }
+
+    static void fill(short[] s, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < s.length; i++) {
+            s[i] = (short) random.nextInt();
+        }
+    }
+
+    /**
+     * 'count' sector numbers (cluster * 36 + sector) drawn uniformly in [0, totalSectors).
+     */
+    static int[] randomSectorNumbers(int count, int totalSectors, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] numbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = random.nextInt(totalSectors);
+        }
+        return numbers;
+    }
+
+    /**
+     * 32 audio sectors with a fixed payload, as an encoder would return them
+     * (the recorder rebuilds the headers for the real cluster).
+     */
+    static MiniDiscSector[] audioSectors(long seed) {
+        MiniDiscSector[] sectors = new MiniDiscSector[MiniDiscFormat.DATA_SECTORS_PER_CLUSTER];
+        byte[] audioBlock = new byte[MiniDiscSector.AUDIO_BLOCK_BYTES];
+        for (int s = 0; s < sectors.length; s++) {
+            fill(audioBlock, seed + s);
+            sectors[s] = MiniDiscSector.fromAddressAndAudioBlock(
+                    new MiniDiscAddress(MiniDiscLayout.PROGRAM_START, s), audioBlock);
+        }
+        return sectors;
+    }
+
+    /**
+     * Image that drops every write and reads zeros: isolates the cost of the layers above it.
+     */
+    static final class SinkImage implements MiniDiscImage {
+        private final int nbOfClusters;
+
+        SinkImage(int nbOfClusters) {
+            this.nbOfClusters = nbOfClusters;
+        }
+
+        @Override
+        public int nbOfClusters() {
+            return nbOfClusters;
+        }
+
+        @Override
+        public void readSector(int clusterIndex, int sectorIndex, byte[] out2352) {
+        }
+
+        @Override
+        public void writeSector(int clusterIndex, int sectorIndex, byte[] in2352) {
+        }
+
+        @Override
+        public void readClusters(int firstClusterIndex, int clusterCount, byte[] out) {
+        }
+
+        @Override
+        public void writeClusters(int firstClusterIndex, int clusterCount, byte[] in) {
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    static int clusterOf(int sectorNumber) {
+        return sectorNumber / SECTORS_PER_CLUSTER;
+    }
+
+    static int sectorOf(int sectorNumber) {
+        return sectorNumber % SECTORS_PER_CLUSTER;
+    }
+}
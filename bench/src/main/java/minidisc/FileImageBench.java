@@ -0,0 +1,124 @@
+package minidisc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+import static minidisc.MiniDiscFormat.SECTORS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+
+/**
+ * FileMiniDiscImage sector I/O on a full MD74 image (about 200 MB in the temp directory),
+ * sequential (next sector, wrapping at the end) and random (fixed-seed sector numbers).
+ * <p>
+ * Every cluster is written once at setup, so reads hit real file pages rather than holes.
+ * Nothing is flushed: the numbers are page cache numbers, not device numbers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class FileImageBench {
+
+    private static final int RANDOM_SECTORS = 1 << 16;
+
+    private final byte[] sector = new byte[SECTOR_BYTES];
+    private final byte[] cluster = new byte[CLUSTER_BYTES];
+    private Path file;
+    private RandomAccessFile raf;
+    private FileMiniDiscImage image;
+    private int totalSectors;
+    private int[] randomSectors;
+    private int nextSequential;
+    private int nextRandom;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        MiniDiscDiscType type = MiniDiscDiscType.MD74;
+        file = Files.createTempFile("md-bench-", ".bin");
+        raf = new RandomAccessFile(file.toFile(), "rw");
+        raf.setLength(FileMiniDiscImage.expectedSizeBytes(type.totalClusters()));
+        image = new FileMiniDiscImage(raf, type.totalClusters());
+
+        BenchData.fill(cluster, 3);
+        for (int c = 0; c < type.totalClusters(); c++) {
+            image.writeCluster(c, cluster);
+        }
+        BenchData.fill(sector, 4);
+        totalSectors = type.totalClusters() * SECTORS_PER_CLUSTER;
+        randomSectors = BenchData.randomSectorNumbers(RANDOM_SECTORS, totalSectors, 5);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        image.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public byte[] readSectorSequential() throws IOException {
+        int n = nextSequential();
+        image.readSector(BenchData.clusterOf(n), BenchData.sectorOf(n), sector);
+        return sector;
+    }
+
+    @Benchmark
+    public byte[] readSectorRandom() throws IOException {
+        int n = nextRandom();
+        image.readSector(BenchData.clusterOf(n), BenchData.sectorOf(n), sector);
+        return sector;
+    }
+
+    @Benchmark
+    public void writeSectorSequential() throws IOException {
+        int n = nextSequential();
+        image.writeSector(BenchData.clusterOf(n), BenchData.sectorOf(n), sector);
+    }
+
+    @Benchmark
+    public void writeSectorRandom() throws IOException {
+        int n = nextRandom();
+        image.writeSector(BenchData.clusterOf(n), BenchData.sectorOf(n), sector);
+    }
+
+    /**
+     * Same bytes as 36 sequential readSector calls, in one positional read.
+     */
+    @Benchmark
+    public byte[] readClusterSequential() throws IOException {
+        int c = nextSequential() / SECTORS_PER_CLUSTER;
+        nextSequential = (c + 1) * SECTORS_PER_CLUSTER % totalSectors;
+        image.readCluster(c, cluster);
+        return cluster;
+    }
+
+    private int nextSequential() {
+        int n = nextSequential;
+        nextSequential = n + 1 == totalSectors ? 0 : n + 1;
+        return n;
+    }
+
+    private int nextRandom() {
+        int n = randomSectors[nextRandom];
+        nextRandom = (nextRandom + 1) & (RANDOM_SECTORS - 1);
+        return n;
+    }
+}
@@ -0,0 +1,92 @@
+package minidisc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+
+/**
+ * Cost of LayoutCheckedMiniDiscImage over a sink image (writes dropped), so only the layer is measured:
+ * - raw*: the sink alone (baseline)
+ * - checked*: delegating methods of the checked image
+ * - checkedWriteAudioSector / checkedWriteTocSector: zone check + sector built by MiniDiscSector factories
+ * - rawBuildAndWriteAudioSector: same bytes built in place, without the checks or the allocation
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class LayoutCheckedBench {
+
+    private final MiniDiscDiscType type = MiniDiscDiscType.MD74;
+    private final byte[] sector = new byte[SECTOR_BYTES];
+    private final byte[] cluster = new byte[CLUSTER_BYTES];
+    private final byte[] audioBlock = new byte[MiniDiscSector.AUDIO_BLOCK_BYTES];
+    private final byte[] tocData = new byte[MiniDiscSector.TOC_DATA_BYTES];
+    private MiniDiscImage raw;
+    private LayoutCheckedMiniDiscImage checked;
+    private MiniDiscAddress audioAddress;
+    private MiniDiscAddress tocAddress;
+
+    @Setup
+    public void setUp() {
+        BenchData.fill(sector, 8);
+        BenchData.fill(cluster, 9);
+        BenchData.fill(audioBlock, 10);
+        BenchData.fill(tocData, 11);
+        raw = new BenchData.SinkImage(type.totalClusters());
+        checked = new LayoutCheckedMiniDiscImage(raw, type);
+        audioAddress = new MiniDiscAddress(0x0100, 5);
+        tocAddress = new MiniDiscAddress(MiniDiscLayout.UTOC_START, 0);
+    }
+
+    @Benchmark
+    public void rawWriteSector() throws IOException {
+        raw.writeSector(0x0100, 5, sector);
+    }
+
+    @Benchmark
+    public void checkedWriteSector() throws IOException {
+        checked.writeSector(0x0100, 5, sector);
+    }
+
+    @Benchmark
+    public void rawWriteCluster() throws IOException {
+        raw.writeCluster(0x0100, cluster);
+    }
+
+    @Benchmark
+    public void checkedWriteCluster() throws IOException {
+        checked.writeCluster(0x0100, cluster);
+    }
+
+    @Benchmark
+    public void rawBuildAndWriteAudioSector() throws IOException {
+        MiniDiscSector.buildAudioSectorInto(audioAddress.clusterIndex(), audioAddress.sectorIndex(), audioBlock, 0, sector, 0);
+        raw.writeSector(audioAddress.clusterIndex(), audioAddress.sectorIndex(), sector);
+    }
+
+    @Benchmark
+    public void checkedWriteAudioSector() throws IOException {
+        checked.writeAudioSector(audioAddress, audioBlock);
+    }
+
+    @Benchmark
+    public void checkedWriteTocSector() throws IOException {
+        checked.writeTocSector(tocAddress, tocData);
+    }
+}
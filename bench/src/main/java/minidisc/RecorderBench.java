@@ -0,0 +1,103 @@
+package minidisc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MiniDiscRecorder.writePcmFrames end to end, one operation = one cluster of PCM (90112 frames)
+ * fed in CHUNK_FRAMES chunks, as a WAV reader would.
+ * <p>
+ * The encoder is a stub returning 32 fixed audio sectors, so the numbers measure the recorder
+ * (PCM buffering, sector building, pipeline, image writes), not ATRAC.
+ * - image: "sink" drops the writes, "file" is a FileMiniDiscImage in the temp directory
+ * - mode: the recorder's sequential, write-behind and parallel modes
+ * When the program area is full, the recorder is finalized and a new one starts at PROGRAM_START.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class RecorderBench {
+
+    private static final int CHUNK_FRAMES = 4096;
+
+    @Param({"sink", "file"})
+    public String image;
+
+    @Param({"sequential", "writeBehind", "parallel"})
+    public String mode;
+
+    private final MiniDiscDiscType type = MiniDiscDiscType.MD74;
+    private final short[] pcm = new short[MiniDiscRecorder.FRAMES_PER_CLUSTER * 2];
+    private final MiniDiscSector[] encoded = BenchData.audioSectors(6);
+    private final MiniDiscRecorder.Atrac1SpClusterEncoder encoder = (cluster, last) -> encoded;
+    private Path file;
+    private LayoutCheckedMiniDiscImage checked;
+    private MiniDiscRecorder recorder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchData.fill(pcm, 7);
+        MiniDiscImage backend;
+        if (image.equals("file")) {
+            file = Files.createTempFile("md-bench-", ".bin");
+            RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+            raf.setLength(FileMiniDiscImage.expectedSizeBytes(type.totalClusters()));
+            backend = new FileMiniDiscImage(raf, type.totalClusters());
+        } else {
+            backend = new BenchData.SinkImage(type.totalClusters());
+        }
+        checked = new LayoutCheckedMiniDiscImage(backend, type);
+        recorder = newRecorder();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try {
+            recorder.close();
+            checked.close();
+        } finally {
+            if (file != null) Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public int writeCluster() throws IOException {
+        if (recorder.nextProgramCluster() == type.programEndExclusive()) {
+            recorder.close();
+            recorder = newRecorder();
+        }
+        for (int f = 0; f < MiniDiscRecorder.FRAMES_PER_CLUSTER; f += CHUNK_FRAMES) {
+            recorder.writePcmFrames(pcm, f, Math.min(CHUNK_FRAMES, MiniDiscRecorder.FRAMES_PER_CLUSTER - f));
+        }
+        return recorder.nextProgramCluster();
+    }
+
+    private MiniDiscRecorder newRecorder() {
+        return switch (mode) {
+            case "sequential" -> new MiniDiscRecorder(checked, encoder, MiniDiscLayout.PROGRAM_START);
+            case "writeBehind" -> MiniDiscRecorder.writeBehind(checked, encoder, MiniDiscLayout.PROGRAM_START, 4);
+            case "parallel" -> MiniDiscRecorder.parallel(checked, () -> encoder, MiniDiscLayout.PROGRAM_START);
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        };
+    }
+}
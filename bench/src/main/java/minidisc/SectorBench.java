@@ -0,0 +1,133 @@
+package minidisc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+
+/**
+ * Sector construction: allocating factories (MiniDiscSector.from*) vs in-place builders (build*Into),
+ * the header address write (instance method vs allocation-free static variant), the audio EDC,
+ * and the read side: header decode of a whole cluster through one repositioned MiniDiscSectorView.
+ * Run with -prof gc to see the bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SectorBench {
+
+    private final byte[] raw = new byte[SECTOR_BYTES];
+    private final byte[] cluster = new byte[CLUSTER_BYTES];
+    private final byte[] audioBlock = new byte[MiniDiscSector.AUDIO_BLOCK_BYTES];
+    private final byte[] tocData = new byte[MiniDiscSector.TOC_DATA_BYTES];
+    private final MiniDiscSectorView view = new MiniDiscSectorView();
+    private int clusterIndex;
+    private int sectorIndex;
+    private MiniDiscAddress audioAddress;
+    private MiniDiscAddress tocAddress;
+
+    @Setup
+    public void setUp() {
+        BenchData.fill(audioBlock, 1);
+        BenchData.fill(tocData, 2);
+        clusterIndex = 0x0100;
+        sectorIndex = 5;
+        audioAddress = new MiniDiscAddress(clusterIndex, sectorIndex);
+        tocAddress = new MiniDiscAddress(MiniDiscLayout.UTOC_START, 0);
+        for (int s = 0; s < MiniDiscFormat.DATA_SECTORS_PER_CLUSTER; s++) {
+            MiniDiscSector.buildAudioSectorInto(clusterIndex, s, audioBlock, 0, cluster, s * SECTOR_BYTES);
+        }
+        MiniDiscSector.buildClusterTailInto(clusterIndex, cluster, 0);
+        view.wrap(cluster, 0);
+    }
+
+    @Benchmark
+    public MiniDiscAddress newAddress() {
+        return new MiniDiscAddress(clusterIndex, sectorIndex);
+    }
+
+    @Benchmark
+    public byte[] writeAddressToHeader() {
+        audioAddress.writeAddressToHeader(raw, MiniDiscSector.HEADER_OFFSET);
+        return raw;
+    }
+
+    @Benchmark
+    public byte[] writeAddressToHeaderStatic() {
+        MiniDiscAddress.writeAddressToHeader(raw, MiniDiscSector.HEADER_OFFSET, clusterIndex, sectorIndex);
+        return raw;
+    }
+
+    @Benchmark
+    public MiniDiscSector fromAddressAndAudioBlock() {
+        return MiniDiscSector.fromAddressAndAudioBlock(audioAddress, audioBlock);
+    }
+
+    @Benchmark
+    public MiniDiscSector fromAddressAndTocData() {
+        return MiniDiscSector.fromAddressAndTocData(tocAddress, tocData);
+    }
+
+    @Benchmark
+    public MiniDiscSector fromRaw() {
+        return MiniDiscSector.fromRaw(raw);
+    }
+
+    @Benchmark
+    public MiniDiscSector wrapRaw() {
+        return MiniDiscSector.wrapRaw(raw);
+    }
+
+    @Benchmark
+    public byte[] buildAudioSectorInto() {
+        MiniDiscSector.buildAudioSectorInto(clusterIndex, sectorIndex, audioBlock, 0, raw, 0);
+        return raw;
+    }
+
+    @Benchmark
+    public byte[] buildAudioSectorIntoWithEdc() {
+        MiniDiscSector.buildAudioSectorInto(clusterIndex, sectorIndex, audioBlock, 0, raw, 0, true);
+        return raw;
+    }
+
+    /**
+     * CRC-32C of one audio sector (~2.3 KB): ops/us x 2336 = bytes/us.
+     */
+    @Benchmark
+    public int audioEdc() {
+        return MiniDiscEdc.compute(raw, 0);
+    }
+
+    /**
+     * Link + subdata sectors (32..35) of a cluster buffer.
+     */
+    @Benchmark
+    public byte[] buildClusterTailInto() {
+        MiniDiscSector.buildClusterTailInto(clusterIndex, cluster, 0);
+        return cluster;
+    }
+
+    @Benchmark
+    public int viewDecodeCluster() {
+        int acc = 0;
+        for (int s = 0; s < MiniDiscFormat.SECTORS_PER_CLUSTER; s++) {
+            view.at(s * SECTOR_BYTES);
+            acc += view.clusterIndex() + view.sectorIndex() + view.modeCode();
+        }
+        return acc;
+    }
+}
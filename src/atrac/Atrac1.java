@@ -0,0 +1,104 @@
+package atrac;
+
+/**
+ * ATRAC1 constants and tables.
+ * <p>
+ * 1 sound unit  = 1 channel, 512 samples, 212 bytes.
+ * 1 sound group = L + R sound units = 424 bytes (SP stereo).
+ * <p>
+ * Signal path: 2-stage QMF (0-5.5 / 5.5-11 / 11-22 kHz) -> MDCT per band (long block, or 32-line short blocks)
+ * -> 52 BFUs (block floating units), each with a 6-bit scale factor index and a 4-bit word length index.
+ *
+ * @see <A href="https://www.minidisc.org/French_tech/section4.html">Structure des données sur le disque</A>
+ */
+public final class Atrac1 {
+    public static final int SAMPLES_PER_SOUND_UNIT = 512;
+    public static final int SOUND_UNIT_BYTES = 212;
+    public static final int SOUND_GROUP_BYTES = 2 * SOUND_UNIT_BYTES; // 424
+    public static final int MAX_BFUS = 52;
+
+    static final int SOUND_UNIT_BITS = SOUND_UNIT_BYTES * 8;
+    // BSM byte + BFU amount byte at the head, 2 redundant bytes at the tail
+    static final int HEADER_AND_TAIL_BITS = 32;
+
+    static final int QMF_BANDS = 3;
+    static final int[] BAND_SAMPLES = {128, 128, 256};
+    static final int[] BAND_SPEC_OFFSET = {0, 128, 256};
+    static final int SHORT_BLOCK = 32;
+    static final int OVERLAP = 32;
+
+    static final int[] BFU_BAND_START = {0, 20, 36, 52};
+    static final int[] BFU_AMOUNT = {20, 28, 32, 36, 40, 44, 48, 52};
+
+    static final int[] SPECS_PER_BFU = {
+            8, 8, 8, 8, 4, 4, 4, 4, 8, 8, 8, 8, 6, 6, 6, 6, 6, 6, 6, 6,       // low band
+            6, 6, 6, 6, 7, 7, 7, 7, 9, 9, 9, 9, 10, 10, 10, 10,               // mid band
+            12, 12, 12, 12, 12, 12, 12, 12, 20, 20, 20, 20, 20, 20, 20, 20    // high band
+    };
+
+    /**
+     * BFU -> first spectral line, long block mode.
+     */
+    static final int[] BFU_START_LONG = {
+            0, 8, 16, 24, 32, 36, 40, 44, 48, 56, 64, 72, 80, 86, 92, 98, 104, 110, 116, 122,
+            128, 134, 140, 146, 152, 159, 166, 173, 180, 189, 198, 207, 216, 226, 236, 246,
+            256, 268, 280, 292, 304, 316, 328, 340, 352, 372, 392, 412, 432, 452, 472, 492
+    };
+
+    /**
+     * BFU -> first spectral line, short block mode (BFUs interleaved across the 32-line blocks).
+     */
+    static final int[] BFU_START_SHORT = {
+            0, 32, 64, 96, 8, 40, 72, 104, 12, 44, 76, 108, 20, 52, 84, 116, 26, 58, 90, 122,
+            128, 160, 192, 224, 134, 166, 198, 230, 141, 173, 205, 237, 150, 182, 214, 246,
+            256, 288, 320, 352, 384, 416, 448, 480, 268, 300, 332, 364, 396, 428, 460, 492
+    };
+
+    /**
+     * 2^((i - 15) / 3), in 16-bit PCM units.
+     */
+    static final float[] SCALE_FACTORS = new float[64];
+
+    /**
+     * Half of the 48-tap QMF prototype (symmetric), designed for near-perfect reconstruction:
+     * power-complementary within 0.0004 dB, stopband (>= 0.65 pi) below -71 dB.
+     */
+    private static final float[] QMF_48TAP_HALF = {
+            -3.5122131005e-05f, 1.0902586728e-05f, 7.9636719585e-05f, -4.5522256227e-05f,
+            -6.4220606839e-05f, 1.5166128731e-05f, -1.0508169656e-04f, 3.2091843160e-04f,
+            4.8655276958e-04f, -1.4220083141e-03f, -9.7608933381e-04f, 3.9774900314e-03f,
+            1.1501180275e-03f, -8.8683803638e-03f, -9.2580693508e-05f, 1.7163679019e-02f,
+            -3.8553499980e-03f, -3.0428871946e-02f, 1.3860990082e-02f, 5.2435713634e-02f,
+            -3.8428012009e-02f, -9.9774581964e-02f, 1.2769970536e-01f, 4.6688864096e-01f
+    };
+    static final float[] QMF_WINDOW = new float[48];
+
+    /**
+     * sin((i + 0.5) * pi / 64): overlap window between consecutive blocks (32 samples).
+     */
+    static final float[] SINE_32 = new float[OVERLAP];
+
+    static {
+        for (int i = 0; i < SCALE_FACTORS.length; i++) {
+            SCALE_FACTORS[i] = (float) Math.pow(2.0, (i - 15) / 3.0);
+        }
+        for (int i = 0; i < QMF_48TAP_HALF.length; i++) {
+            float s = QMF_48TAP_HALF[i] * 2.0f;
+            QMF_WINDOW[i] = s;
+            QMF_WINDOW[47 - i] = s;
+        }
+        for (int i = 0; i < OVERLAP; i++) {
+            SINE_32[i] = (float) Math.sin((i + 0.5) * Math.PI / 64.0);
+        }
+    }
+
+    /**
+     * Word length in bits for a 4-bit word length index: 0 -> 0 (BFU not coded), n -> n + 1.
+     */
+    static int wordLength(int idwl) {
+        return idwl == 0 ? 0 : idwl + 1;
+    }
+
+    private Atrac1() {
+    }
+}
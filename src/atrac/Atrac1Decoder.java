@@ -0,0 +1,225 @@
+package atrac;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import static atrac.Atrac1.BAND_SAMPLES;
+import static atrac.Atrac1.BAND_SPEC_OFFSET;
+import static atrac.Atrac1.BFU_AMOUNT;
+import static atrac.Atrac1.BFU_BAND_START;
+import static atrac.Atrac1.BFU_START_LONG;
+import static atrac.Atrac1.BFU_START_SHORT;
+import static atrac.Atrac1.HEADER_AND_TAIL_BITS;
+import static atrac.Atrac1.MAX_BFUS;
+import static atrac.Atrac1.OVERLAP;
+import static atrac.Atrac1.QMF_BANDS;
+import static atrac.Atrac1.SAMPLES_PER_SOUND_UNIT;
+import static atrac.Atrac1.SCALE_FACTORS;
+import static atrac.Atrac1.SHORT_BLOCK;
+import static atrac.Atrac1.SINE_32;
+import static atrac.Atrac1.SOUND_UNIT_BITS;
+import static atrac.Atrac1.SOUND_UNIT_BYTES;
+import static atrac.Atrac1.SPECS_PER_BFU;
+
+/**
+ * ATRAC1 decoder for one channel: one 212-byte sound unit -> 512 PCM samples.
+ * <p>
+ * Stateful (MDCT overlap, QMF history): one instance per channel, used by one thread.
+ * decode() does not allocate. Output lags the encoder input by {@link #CODEC_DELAY_SAMPLES}.
+ */
+public final class Atrac1Decoder {
+
+    /**
+     * Encoder + decoder delay (QMF stages, block overlap), in samples.
+     */
+    public static final int CODEC_DELAY_SAMPLES = 272;
+
+    /**
+     * The high band skips the second QMF stage: delayed to line up with the low/mid path.
+     */
+    private static final int HIGH_BAND_DELAY = 39;
+
+    private final Qmf qmfJoin = new Qmf(SAMPLES_PER_SOUND_UNIT);
+    private final Qmf qmfLowMid = new Qmf(SAMPLES_PER_SOUND_UNIT / 2);
+    private final Dct4 dctShort = new Dct4(SHORT_BLOCK);
+    private final Dct4 dctMid = new Dct4(128);
+    private final Dct4 dctHigh = new Dct4(256);
+
+    private final float[] spec = new float[SAMPLES_PER_SOUND_UNIT];
+    private final boolean[] shortBlocks = new boolean[QMF_BANDS];
+    private final int[] wordLength = new int[MAX_BFUS];
+    private final int[] idsf = new int[MAX_BFUS];
+
+    private final float[] block = new float[256];
+    private final float[][] bandSignal = new float[QMF_BANDS][];
+    private final float[][] overlapTail = new float[QMF_BANDS][OVERLAP / 2];
+    private final float[] highDelayed = new float[HIGH_BAND_DELAY + 256];
+    private final float[] lowMid = new float[SAMPLES_PER_SOUND_UNIT / 2];
+    private final float[] output = new float[SAMPLES_PER_SOUND_UNIT];
+
+    // bit reader
+    private byte[] in;
+    private int inPos;
+    private long bitBuffer;
+    private int bitCount;
+
+    public Atrac1Decoder() {
+        for (int band = 0; band < QMF_BANDS; band++) {
+            bandSignal[band] = new float[BAND_SAMPLES[band]];
+        }
+    }
+
+    /**
+     * Decodes one sound unit into 512 samples written as pcm[offset + i * stride].
+     *
+     * @throws IllegalArgumentException if the sound unit is malformed (block size mode, bit budget)
+     */
+    public void decode(byte[] su, int suOffset, short[] pcm, int offset, int stride) {
+        Objects.requireNonNull(su, "su");
+        Objects.requireNonNull(pcm, "pcm");
+        if (suOffset < 0 || suOffset + SOUND_UNIT_BYTES > su.length) {
+            throw new IllegalArgumentException("su too small for a sound unit");
+        }
+        if (stride <= 0 || offset < 0 || offset + (long) (SAMPLES_PER_SOUND_UNIT - 1) * stride >= pcm.length) {
+            throw new IllegalArgumentException("pcm too small for 512 samples at offset/stride");
+        }
+
+        unpack(su, suOffset);
+        synthesize();
+
+        for (int i = 0, p = offset; i < SAMPLES_PER_SOUND_UNIT; i++, p += stride) {
+            int v = Math.round(output[i]);
+            pcm[p] = (short) (v > Short.MAX_VALUE ? Short.MAX_VALUE : v < Short.MIN_VALUE ? Short.MIN_VALUE : v);
+        }
+    }
+
+    /**
+     * Back to silence (e.g. between tracks).
+     */
+    public void reset() {
+        qmfJoin.reset();
+        qmfLowMid.reset();
+        for (float[] t : overlapTail) Arrays.fill(t, 0f);
+        Arrays.fill(highDelayed, 0f);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Bitstream -> spectrum
+    // ---------------------------------------------------------------------------------------------
+
+    private void unpack(byte[] su, int suOffset) {
+        in = su;
+        inPos = suOffset;
+        bitBuffer = 0L;
+        bitCount = 0;
+
+        int bsmLow = getBits(2);
+        int bsmMid = getBits(2);
+        int bsmHigh = getBits(2);
+        getBits(2);
+        if ((bsmLow & ~2) != 0 || (bsmMid & ~2) != 0 || (bsmHigh != 0 && bsmHigh != 3)) {
+            throw new IllegalArgumentException("Invalid block size mode");
+        }
+        shortBlocks[0] = bsmLow == 0;
+        shortBlocks[1] = bsmMid == 0;
+        shortBlocks[2] = bsmHigh == 0;
+
+        int bfuCount = BFU_AMOUNT[getBits(3)];
+        getBits(5);
+
+        int specBits = 0;
+        for (int b = 0; b < bfuCount; b++) {
+            wordLength[b] = Atrac1.wordLength(getBits(4));
+            specBits += wordLength[b] * SPECS_PER_BFU[b];
+        }
+        if (specBits > SOUND_UNIT_BITS - HEADER_AND_TAIL_BITS - bfuCount * 10) {
+            throw new IllegalArgumentException("Sound unit over its bit budget");
+        }
+        for (int b = 0; b < bfuCount; b++) {
+            idsf[b] = getBits(6);
+        }
+
+        Arrays.fill(spec, 0f);
+        for (int b = 0; b < bfuCount; b++) {
+            int wl = wordLength[b];
+            if (wl == 0) continue;
+            float scale = SCALE_FACTORS[idsf[b]] / ((1 << (wl - 1)) - 1);
+            int shift = 32 - wl;
+            for (int i = bfuStart(b), end = i + SPECS_PER_BFU[b]; i < end; i++) {
+                int q = (getBits(wl) << shift) >> shift;
+                spec[i] = q * scale;
+            }
+        }
+        in = null;
+    }
+
+    private int bfuStart(int b) {
+        int band = b < BFU_BAND_START[1] ? 0 : b < BFU_BAND_START[2] ? 1 : 2;
+        return shortBlocks[band] ? BFU_START_SHORT[b] : BFU_START_LONG[b];
+    }
+
+    /**
+     * n <= 16 bits, MSB first.
+     */
+    private int getBits(int n) {
+        while (bitCount < n) {
+            bitBuffer = (bitBuffer << 8) | (in[inPos++] & 0xFF);
+            bitCount += 8;
+        }
+        bitCount -= n;
+        return (int) (bitBuffer >>> bitCount) & ((1 << n) - 1);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Synthesis: IMDCT + overlap-add -> QMF
+    // ---------------------------------------------------------------------------------------------
+
+    private void synthesize() {
+        for (int band = 0; band < QMF_BANDS; band++) {
+            int samples = BAND_SAMPLES[band];
+            boolean reversed = band > 0;
+            if (shortBlocks[band]) {
+                for (int q = 0; q < samples; q += SHORT_BLOCK) {
+                    inverseBlock(band, q, SHORT_BLOCK, dctShort, BAND_SPEC_OFFSET[band] + q, reversed);
+                }
+            } else {
+                inverseBlock(band, 0, samples, band == 2 ? dctHigh : dctMid, BAND_SPEC_OFFSET[band], reversed);
+            }
+        }
+
+        System.arraycopy(bandSignal[2], 0, highDelayed, HIGH_BAND_DELAY, 256);
+        qmfLowMid.synthesis(bandSignal[0], 0, bandSignal[1], 0, lowMid, 0);
+        qmfJoin.synthesis(lowMid, 0, highDelayed, 0, output, 0);
+        System.arraycopy(highDelayed, 256, highDelayed, 0, HIGH_BAND_DELAY);
+    }
+
+    /**
+     * IMDCT half of one block (u), windowed overlap-add with the previous block's tail,
+     * written at bandSignal[band][q..q+len).
+     * Exact inverse of Atrac1Encoder's forward block.
+     */
+    private void inverseBlock(int band, int q, int len, Dct4 dct, int specOff, boolean reversed) {
+        for (int j = 0; j < len; j++) {
+            float x = reversed ? spec[specOff + j] : spec[specOff + len - 1 - j];
+            block[j] = (j & 1) == 0 ? x : -x;
+        }
+        dct.transform(block, 0, block, 0);
+        for (int m = 0; m < len; m += 2) {
+            block[m] = -block[m]; // u[m] = -(-1)^m * DCT4(z)[m]
+        }
+
+        float[] o = bandSignal[band];
+        float[] tail = overlapTail[band];
+        int half = OVERLAP / 2;
+        for (int a = 0; a < half; a++) {
+            float s = SINE_32[a];
+            float c = SINE_32[OVERLAP - 1 - a];
+            float prev = tail[a];
+            float head = block[half - 1 - a];
+            o[q + a] = prev * c - head * s;
+            o[q + OVERLAP - 1 - a] = prev * s + head * c;
+        }
+        System.arraycopy(block, half, o, q + OVERLAP, len - OVERLAP);
+        System.arraycopy(block, len - half, tail, 0, half);
+    }
+}
@@ -0,0 +1,398 @@
+package atrac;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import static atrac.Atrac1.BAND_SAMPLES;
+import static atrac.Atrac1.BAND_SPEC_OFFSET;
+import static atrac.Atrac1.BFU_AMOUNT;
+import static atrac.Atrac1.BFU_BAND_START;
+import static atrac.Atrac1.BFU_START_LONG;
+import static atrac.Atrac1.BFU_START_SHORT;
+import static atrac.Atrac1.HEADER_AND_TAIL_BITS;
+import static atrac.Atrac1.MAX_BFUS;
+import static atrac.Atrac1.OVERLAP;
+import static atrac.Atrac1.QMF_BANDS;
+import static atrac.Atrac1.SAMPLES_PER_SOUND_UNIT;
+import static atrac.Atrac1.SCALE_FACTORS;
+import static atrac.Atrac1.SHORT_BLOCK;
+import static atrac.Atrac1.SINE_32;
+import static atrac.Atrac1.SOUND_UNIT_BITS;
+import static atrac.Atrac1.SOUND_UNIT_BYTES;
+import static atrac.Atrac1.SPECS_PER_BFU;
+
+/**
+ * ATRAC1 encoder for one channel: 512 PCM samples -> one 212-byte sound unit.
+ * <p>
+ * Stateful (QMF history, MDCT overlap, transient detector): one instance per channel, used by one thread.
+ * All buffers and tables are allocated once; encode() does not allocate.
+ */
+public final class Atrac1Encoder {
+
+    /**
+     * Band samples kept back so that each block has its 32-sample overlap lookahead.
+     * Low/mid run at 1/4 of the input rate and high at 1/2: 32 x 4 == 64 x 2 input samples.
+     * The high band is held back 9 more: with the 39 samples the decoder delays it by, that matches
+     * the 48-sample delay of the second QMF stage on the low/mid path.
+     */
+    private static final int[] BAND_DELAY = {32, 32, 64 + 9};
+
+    /**
+     * Transient detector: a segment this many times louder than the previous one switches the band to short blocks.
+     */
+    private static final float ATTACK_RATIO = 28f;
+    private static final float ATTACK_FLOOR_PER_SAMPLE = 1000f;
+
+    /**
+     * Word length bias per BFU in bits: less precision where hearing is less sensitive (top of the high band).
+     */
+    private static final float[] BFU_BIAS = new float[MAX_BFUS];
+
+    static {
+        for (int b = 0; b < MAX_BFUS; b++) {
+            BFU_BIAS[b] = b < 36 ? 0f : (b - 36) * 0.08f;
+        }
+    }
+
+    private final Qmf qmfSplit = new Qmf(SAMPLES_PER_SOUND_UNIT); // -> 0-11 kHz + 11-22 kHz
+    private final Qmf qmfLowMid = new Qmf(SAMPLES_PER_SOUND_UNIT / 2); // -> 0-5.5 kHz + 5.5-11 kHz
+    private final Dct4 dctShort = new Dct4(SHORT_BLOCK);
+    private final Dct4 dctMid = new Dct4(128);
+    private final Dct4 dctHigh = new Dct4(256);
+
+    private final float[] input = new float[SAMPLES_PER_SOUND_UNIT];
+    private final float[] lowMid = new float[SAMPLES_PER_SOUND_UNIT / 2];
+    private final float[][] bandSignal = new float[QMF_BANDS][]; // [0, delay): kept back, then this frame's samples
+    private final float[] block = new float[256];
+    private final float[] spec = new float[SAMPLES_PER_SOUND_UNIT];
+    private final boolean[] shortBlocks = new boolean[QMF_BANDS];
+    private final float[] lastSegmentEnergy = new float[QMF_BANDS];
+
+    private final int[] idsf = new int[MAX_BFUS];
+    private final int[] wordLength = new int[MAX_BFUS];
+    private final float[] allocBase = new float[MAX_BFUS];
+
+    // bit writer
+    private byte[] out;
+    private int outPos;
+    private long bitBuffer;
+    private int bitCount;
+
+    public Atrac1Encoder() {
+        for (int band = 0; band < QMF_BANDS; band++) {
+            bandSignal[band] = new float[BAND_DELAY[band] + BAND_SAMPLES[band]];
+        }
+    }
+
+    /**
+     * Encodes 512 samples read as pcm[offset + i * stride] (stride 2 reads one channel of interleaved stereo).
+     *
+     * @param dst receives 212 bytes at dstOffset
+     */
+    public void encode(short[] pcm, int offset, int stride, byte[] dst, int dstOffset) {
+        Objects.requireNonNull(pcm, "pcm");
+        Objects.requireNonNull(dst, "dst");
+        if (stride <= 0 || offset < 0 || offset + (long) (SAMPLES_PER_SOUND_UNIT - 1) * stride >= pcm.length) {
+            throw new IllegalArgumentException("pcm too small for 512 samples at offset/stride");
+        }
+        if (dstOffset < 0 || dstOffset + SOUND_UNIT_BYTES > dst.length) {
+            throw new IllegalArgumentException("dst too small for a sound unit");
+        }
+
+        for (int i = 0, p = offset; i < SAMPLES_PER_SOUND_UNIT; i++, p += stride) {
+            input[i] = pcm[p];
+        }
+
+        analyze();
+        computeScaleFactors();
+        int bfuAmountIndex = allocateBits();
+        pack(bfuAmountIndex, dst, dstOffset);
+    }
+
+    /**
+     * Back to silence (e.g. between tracks).
+     * <p>
+     * The state only depends on the last 512 input samples: reset() then encode() of the 512 samples that
+     * precede a frame leaves the encoder exactly as if it had encoded the whole stream up to there.
+     */
+    public void reset() {
+        qmfSplit.reset();
+        qmfLowMid.reset();
+        for (float[] s : bandSignal) Arrays.fill(s, 0f);
+        Arrays.fill(lastSegmentEnergy, 0f);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Analysis: QMF -> block size decision -> MDCT
+    // ---------------------------------------------------------------------------------------------
+
+    private void analyze() {
+        qmfSplit.analysis(input, 0, lowMid, 0, bandSignal[2], BAND_DELAY[2]);
+        qmfLowMid.analysis(lowMid, 0, bandSignal[0], BAND_DELAY[0], bandSignal[1], BAND_DELAY[1]);
+
+        for (int band = 0; band < QMF_BANDS; band++) {
+            int samples = BAND_SAMPLES[band];
+            float[] sig = bandSignal[band];
+
+            boolean isShort = detectAttack(band, sig, samples);
+            shortBlocks[band] = isShort;
+
+            boolean reversed = band > 0; // upper QMF outputs are spectrally inverted
+            if (isShort) {
+                for (int q = 0; q < samples; q += SHORT_BLOCK) {
+                    forwardBlock(sig, q, SHORT_BLOCK, dctShort, BAND_SPEC_OFFSET[band] + q, reversed);
+                }
+            } else {
+                forwardBlock(sig, 0, samples, band == 2 ? dctHigh : dctMid, BAND_SPEC_OFFSET[band], reversed);
+            }
+
+            // keep the last 'delay' samples for the next frame
+            System.arraycopy(sig, samples, sig, 0, BAND_DELAY[band]);
+        }
+    }
+
+    /**
+     * Energy per 1/8 of the frame (+ the lookahead segment); short blocks on a sharp rise.
+     */
+    private boolean detectAttack(int band, float[] sig, int samples) {
+        int segment = samples / 8;
+        float floor = ATTACK_FLOOR_PER_SAMPLE * segment;
+        float previous = lastSegmentEnergy[band];
+        boolean attack = false;
+        for (int s = 0; s <= 8; s++) {
+            float e = 0f;
+            for (int i = s * segment, end = i + segment; i < end; i++) {
+                e += sig[i] * sig[i];
+            }
+            if (e > floor && e > ATTACK_RATIO * Math.max(previous, floor)) {
+                attack = true;
+            }
+            if (s == 7) lastSegmentEnergy[band] = e;
+            previous = e;
+        }
+        return attack;
+    }
+
+    /**
+     * One MDCT block of length len starting at sig[q]: fold the two 32-sample overlaps
+     * (sine window) around the block body, then DCT-IV.
+     * Decoder side (IMDCT half + windowed overlap-add) is the exact inverse.
+     */
+    private void forwardBlock(float[] sig, int q, int len, Dct4 dct, int specOff, boolean reversed) {
+        int half = OVERLAP / 2;
+        // block[] holds the folded block in reverse order: block[len - 1 - i] = u[i]
+        for (int a = 0; a < half; a++) {
+            float c = SINE_32[OVERLAP - 1 - a];
+            float s = SINE_32[a];
+            float d0 = sig[q + a];
+            float d1 = sig[q + OVERLAP - 1 - a];
+            block[len - half + a] = -s * d0 + c * d1;           // u[15 - a]
+            float e0 = sig[q + len + a];
+            float e1 = sig[q + len + OVERLAP - 1 - a];
+            block[half - 1 - a] = c * e0 + s * e1;              // u[len - 16 + a]
+        }
+        for (int m = 0, body = len - OVERLAP; m < body; m++) {
+            block[len - half - 1 - m] = sig[q + OVERLAP + m];   // u[16 + m]
+        }
+
+        dct.transform(block, 0, block, 0);
+
+        float scale = 2f / len;
+        if (reversed) {
+            for (int k = 0; k < len; k++) spec[specOff + len - 1 - k] = block[k] * scale;
+        } else {
+            for (int k = 0; k < len; k++) spec[specOff + k] = block[k] * scale;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Quantization
+    // ---------------------------------------------------------------------------------------------
+
+    private void computeScaleFactors() {
+        for (int b = 0; b < MAX_BFUS; b++) {
+            int start = bfuStart(b);
+            float max = 0f;
+            for (int i = start, end = start + SPECS_PER_BFU[b]; i < end; i++) {
+                float v = Math.abs(spec[i]);
+                if (v > max) max = v;
+            }
+            if (max == 0f) {
+                idsf[b] = 0;
+                allocBase[b] = Float.NEGATIVE_INFINITY; // nothing to code
+            } else {
+                int sf = scaleFactorIndex(max);
+                idsf[b] = sf;
+                // 1 scale factor step = 2 dB = 1/3 bit
+                allocBase[b] = sf / 3f - BFU_BIAS[b];
+            }
+        }
+    }
+
+    /**
+     * Smallest index whose scale factor is >= max (binary search in the 64-entry table).
+     */
+    private static int scaleFactorIndex(float max) {
+        int lo = 0;
+        int hi = SCALE_FACTORS.length - 1;
+        if (max >= SCALE_FACTORS[hi]) return hi;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (SCALE_FACTORS[mid] >= max) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    /**
+     * Water-filling on a common offset, then a greedy pass for the remaining bits.
+     * Uses all 52 BFUs first, then shrinks the coded BFU amount when the top ones got no bits.
+     *
+     * @return index in BFU_AMOUNT
+     */
+    private int allocateBits() {
+        int amountIndex = BFU_AMOUNT.length - 1;
+        allocate(BFU_AMOUNT[amountIndex]);
+
+        int last = -1;
+        for (int b = MAX_BFUS - 1; b >= 0; b--) {
+            if (wordLength[b] > 0) {
+                last = b;
+                break;
+            }
+        }
+        int needed = 0;
+        while (BFU_AMOUNT[needed] <= last) needed++;
+        if (needed != amountIndex) {
+            amountIndex = needed;
+            allocate(BFU_AMOUNT[amountIndex]);
+        }
+        return amountIndex;
+    }
+
+    private void allocate(int bfuCount) {
+        int budget = SOUND_UNIT_BITS - HEADER_AND_TAIL_BITS - bfuCount * 10;
+
+        float lo = -32f; // every BFU at max precision
+        float hi = 32f;  // nothing coded
+        for (int iter = 0; iter < 24; iter++) {
+            float mid = (lo + hi) * 0.5f;
+            if (bitsFor(mid, bfuCount) <= budget) hi = mid;
+            else lo = mid;
+        }
+        int used = 0;
+        for (int b = 0; b < bfuCount; b++) {
+            wordLength[b] = wordLengthFor(b, hi);
+            used += wordLength[b] * SPECS_PER_BFU[b];
+        }
+        for (int b = bfuCount; b < MAX_BFUS; b++) {
+            wordLength[b] = 0;
+        }
+
+        // greedy top-up, low frequencies first
+        int left = budget - used;
+        for (int b = 0; b < bfuCount && left > 0; b++) {
+            int wl = wordLength[b];
+            if (wl == 0 || wl == 16) continue;
+            if (SPECS_PER_BFU[b] <= left) {
+                wordLength[b] = wl + 1;
+                left -= SPECS_PER_BFU[b];
+            }
+        }
+    }
+
+    private int bitsFor(float offset, int bfuCount) {
+        int bits = 0;
+        for (int b = 0; b < bfuCount; b++) {
+            bits += wordLengthFor(b, offset) * SPECS_PER_BFU[b];
+        }
+        return bits;
+    }
+
+    /**
+     * 0 (not coded) or 2..16 bits.
+     */
+    private int wordLengthFor(int b, float offset) {
+        float v = allocBase[b] - offset;
+        if (v < 2f) return 0;
+        return v >= 16f ? 16 : (int) v;
+    }
+
+    private int bfuStart(int b) {
+        int band = b < BFU_BAND_START[1] ? 0 : b < BFU_BAND_START[2] ? 1 : 2;
+        return shortBlocks[band] ? BFU_START_SHORT[b] : BFU_START_LONG[b];
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Bitstream
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Layout (MSB first):
+     * BSM (2 bits per band + 2 reserved), BFU amount index (3) + 5 reserved bits,
+     * word length index (4 bits) x BFUs, scale factor index (6 bits) x BFUs,
+     * spectra (word length bits, two's complement) BFU by BFU, then the 2 header bytes repeated at the tail.
+     */
+    private void pack(int bfuAmountIndex, byte[] dst, int dstOffset) {
+        Arrays.fill(dst, dstOffset, dstOffset + SOUND_UNIT_BYTES, (byte) 0);
+        out = dst;
+        outPos = dstOffset;
+        bitBuffer = 0L;
+        bitCount = 0;
+
+        putBits(shortBlocks[0] ? 0 : 2, 2);
+        putBits(shortBlocks[1] ? 0 : 2, 2);
+        putBits(shortBlocks[2] ? 0 : 3, 2);
+        putBits(0, 2);
+        putBits(bfuAmountIndex, 3);
+        putBits(0, 2);
+        putBits(0, 3);
+
+        int bfuCount = BFU_AMOUNT[bfuAmountIndex];
+        for (int b = 0; b < bfuCount; b++) {
+            putBits(wordLength[b] == 0 ? 0 : wordLength[b] - 1, 4);
+        }
+        for (int b = 0; b < bfuCount; b++) {
+            putBits(idsf[b], 6);
+        }
+        for (int b = 0; b < bfuCount; b++) {
+            int wl = wordLength[b];
+            if (wl == 0) continue;
+            int maxQ = (1 << (wl - 1)) - 1;
+            float scale = maxQ / SCALE_FACTORS[idsf[b]];
+            for (int i = bfuStart(b), end = i + SPECS_PER_BFU[b]; i < end; i++) {
+                int q = Math.round(spec[i] * scale);
+                if (q > maxQ) q = maxQ;
+                else if (q < -maxQ) q = -maxQ;
+                putBits(q, wl);
+            }
+        }
+        flushBits();
+
+        dst[dstOffset + SOUND_UNIT_BYTES - 2] = dst[dstOffset];
+        dst[dstOffset + SOUND_UNIT_BYTES - 1] = dst[dstOffset + 1];
+        out = null;
+    }
+
+    /**
+     * n <= 16 bits, MSB first; whole bytes are flushed from a 64-bit accumulator.
+     */
+    private void putBits(int value, int n) {
+        bitBuffer = (bitBuffer << n) | (value & ((1 << n) - 1));
+        bitCount += n;
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            out[outPos++] = (byte) (bitBuffer >>> bitCount);
+        }
+    }
+
+    /**
+     * Pads the last byte with zeros.
+     */
+    private void flushBits() {
+        if (bitCount > 0) {
+            out[outPos++] = (byte) (bitBuffer << (8 - bitCount));
+            bitCount = 0;
+        }
+    }
+}
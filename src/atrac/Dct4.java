@@ -0,0 +1,99 @@
+package atrac;
+
+/**
+ * Unnormalized DCT-IV of a fixed power-of-two size N, computed with an N/2-point complex FFT:
+ * out[k] = sum_n in[n] * cos(pi / N * (n + 1/2) * (k + 1/2)).
+ * <p>
+ * All twiddles are precomputed; transform() does not allocate. Not thread-safe (scratch buffers).
+ */
+final class Dct4 {
+    private final int n;
+    private final int half;
+    private final float[] preCos;
+    private final float[] preSin;
+    private final float[] postCos;
+    private final float[] postSin;
+    private final float[] fftCos;
+    private final float[] fftSin;
+    private final int[] bitReverse;
+    private final float[] re;
+    private final float[] im;
+
+    Dct4(int n) {
+        if (n < 4 || Integer.bitCount(n) != 1) throw new IllegalArgumentException("size must be a power of 2 >= 4: " + n);
+        this.n = n;
+        this.half = n / 2;
+        this.preCos = new float[half];
+        this.preSin = new float[half];
+        this.postCos = new float[half];
+        this.postSin = new float[half];
+        for (int k = 0; k < half; k++) {
+            double pre = -Math.PI * (k + 0.25) / n;
+            preCos[k] = (float) Math.cos(pre);
+            preSin[k] = (float) Math.sin(pre);
+            double post = -Math.PI * k / n;
+            postCos[k] = (float) Math.cos(post);
+            postSin[k] = (float) Math.sin(post);
+        }
+        this.fftCos = new float[half / 2];
+        this.fftSin = new float[half / 2];
+        for (int k = 0; k < half / 2; k++) {
+            double t = -2.0 * Math.PI * k / half;
+            fftCos[k] = (float) Math.cos(t);
+            fftSin[k] = (float) Math.sin(t);
+        }
+        this.bitReverse = new int[half];
+        int bits = Integer.numberOfTrailingZeros(half);
+        for (int i = 0; i < half; i++) {
+            bitReverse[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+        }
+        this.re = new float[half];
+        this.im = new float[half];
+    }
+
+    int size() {
+        return n;
+    }
+
+    /**
+     * in and out may be the same array (the input is fully consumed before out is written).
+     */
+    void transform(float[] in, int inOff, float[] out, int outOff) {
+        // pre-twiddle, loaded in bit-reversed order
+        for (int k = 0; k < half; k++) {
+            float a = in[inOff + 2 * k];
+            float b = in[inOff + n - 1 - 2 * k];
+            int j = bitReverse[k];
+            re[j] = a * preCos[k] - b * preSin[k];
+            im[j] = a * preSin[k] + b * preCos[k];
+        }
+
+        // iterative radix-2 FFT
+        for (int size = 2; size <= half; size <<= 1) {
+            int halfSize = size >>> 1;
+            int step = half / size;
+            for (int start = 0; start < half; start += size) {
+                for (int k = 0; k < halfSize; k++) {
+                    float wr = fftCos[k * step];
+                    float wi = fftSin[k * step];
+                    int p = start + k;
+                    int q = p + halfSize;
+                    float tr = re[q] * wr - im[q] * wi;
+                    float ti = re[q] * wi + im[q] * wr;
+                    re[q] = re[p] - tr;
+                    im[q] = im[p] - ti;
+                    re[p] += tr;
+                    im[p] += ti;
+                }
+            }
+        }
+
+        // post-twiddle
+        for (int k = 0; k < half; k++) {
+            float yr = re[k] * postCos[k] - im[k] * postSin[k];
+            float yi = re[k] * postSin[k] + im[k] * postCos[k];
+            out[outOff + 2 * k] = yr;
+            out[outOff + n - 1 - 2 * k] = -yi;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package atrac;
+
+import java.util.Arrays;
+
+import static atrac.Atrac1.QMF_WINDOW;
+
+/**
+ * One 48-tap QMF stage: splits nIn samples into nIn/2 lower-band + nIn/2 upper-band samples,
+ * or (synthesis) joins them back into nIn samples, 47 samples later.
+ * The upper band comes out spectrally inverted (hence the reversed spectrum of mid/high bands).
+ * <p>
+ * Keeps 48 samples of history between calls: an instance does analysis or synthesis, not both. Not thread-safe.
+ */
+final class Qmf {
+    private static final int TAPS = 48;
+
+    private final int nIn;
+    private final float[] buf; // [0, 48): history, [48, 48 + nIn): current input
+
+    Qmf(int nIn) {
+        if (nIn <= 0 || (nIn & 1) != 0) throw new IllegalArgumentException("nIn must be even and > 0: " + nIn);
+        this.nIn = nIn;
+        this.buf = new float[TAPS + nIn];
+    }
+
+    void analysis(float[] in, int inOff, float[] lower, int lowerOff, float[] upper, int upperOff) {
+        System.arraycopy(in, inOff, buf, TAPS, nIn);
+
+        for (int j = 0; j < nIn; j += 2) {
+            float even = 0f;
+            float odd = 0f;
+            int newest = TAPS - 1 + j;
+            for (int i = 0; i < TAPS; i += 2) {
+                even += QMF_WINDOW[i] * buf[newest - i];
+                odd += QMF_WINDOW[i + 1] * buf[newest - i - 1];
+            }
+            // the synthesis side (same window) carries the x2 gain
+            lower[lowerOff + j / 2] = (even + odd) * 0.5f;
+            upper[upperOff + j / 2] = (even - odd) * 0.5f;
+        }
+
+        System.arraycopy(buf, nIn, buf, 0, TAPS);
+    }
+
+    /**
+     * Inverse of analysis(): nIn/2 lower + nIn/2 upper samples -> nIn samples.
+     */
+    void synthesis(float[] lower, int lowerOff, float[] upper, int upperOff, float[] out, int outOff) {
+        // buf: [0, 46) history, then lower +/- upper interleaved
+        for (int i = 0, p = TAPS - 2; i < nIn / 2; i++, p += 2) {
+            float lo = lower[lowerOff + i];
+            float hi = upper[upperOff + i];
+            buf[p] = lo + hi;
+            buf[p + 1] = lo - hi;
+        }
+
+        for (int j = 0; j < nIn; j += 2) {
+            float even = 0f;
+            float odd = 0f;
+            for (int i = 0; i < TAPS; i += 2) {
+                even += QMF_WINDOW[i] * buf[j + i];
+                odd += QMF_WINDOW[i + 1] * buf[j + i + 1];
+            }
+            out[outOff + j] = odd;
+            out[outOff + j + 1] = even;
+        }
+
+        System.arraycopy(buf, nIn, buf, 0, TAPS - 2);
+    }
+
+    void reset() {
+        Arrays.fill(buf, 0f);
+    }
+}
@@ -0,0 +1,87 @@
+package minidisc;
+
+import atrac.Atrac1;
+import atrac.Atrac1Encoder;
+
+import java.util.Objects;
+
+import static minidisc.MiniDiscFormat.DATA_SECTORS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+import static minidisc.MiniDiscRecorder.FRAMES_PER_CLUSTER;
+import static minidisc.MiniDiscRecorder.FRAMES_PER_SOUNDGROUP;
+import static minidisc.MiniDiscRecorder.SOUNDGROUPS_PER_CLUSTER;
+
+/**
+ * ATRAC1 SP (stereo) cluster encoder: 90112 interleaved frames -> 176 sound groups -> 32 audio sectors.
+ * <p>
+ * Sound group g = L sound unit + R sound unit (424 bytes), stored back to back in the audio payloads
+ * of sectors 0..31 (2332 = 11 x 212: a sound unit never straddles 2 sectors, a sound group may).
+ * <p>
+ * Stateful (one Atrac1Encoder per channel, history carried from one cluster to the next): used by one
+ * thread at a time. In parallel mode consecutive clusters go to different pooled instances, so the
+ * recorder calls warmUp() with the sound group that precedes each cluster: reset + encode of those
+ * 512 frames restores exactly the sequential state (see Atrac1Encoder.reset).
+ * The returned sectors are reused by the next call.
+ * Sector headers are left at cluster 0: the recorder rewrites them for the actual address.
+ */
+public final class Atrac1SpEncoder implements MiniDiscRecorder.Atrac1SpClusterEncoder {
+
+    private static final int SOUND_UNITS_PER_SECTOR = MiniDiscSector.AUDIO_BLOCK_BYTES / Atrac1.SOUND_UNIT_BYTES; // 11
+
+    private final Atrac1Encoder left = new Atrac1Encoder();
+    private final Atrac1Encoder right = new Atrac1Encoder();
+    private final MiniDiscSector[] sectors = new MiniDiscSector[DATA_SECTORS_PER_CLUSTER];
+    private final byte[] discarded = new byte[Atrac1.SOUND_UNIT_BYTES];
+
+    public Atrac1SpEncoder() {
+        for (int s = 0; s < DATA_SECTORS_PER_CLUSTER; s++) {
+            byte[] raw = new byte[SECTOR_BYTES];
+            MiniDiscSector.buildAudioHeaderInto(0, s, raw, 0);
+            sectors[s] = MiniDiscSector.wrapRaw(raw);
+        }
+    }
+
+    @Override
+    public MiniDiscSector[] encodeClusterToAudioSectors(short[] pcmInterleavedCluster, boolean lastCluster) {
+        Objects.requireNonNull(pcmInterleavedCluster, "pcmInterleavedCluster");
+        if (pcmInterleavedCluster.length != FRAMES_PER_CLUSTER * 2) {
+            throw new IllegalArgumentException("pcmInterleavedCluster must be " + (FRAMES_PER_CLUSTER * 2) + " samples");
+        }
+
+        for (int sg = 0; sg < SOUNDGROUPS_PER_CLUSTER; sg++) {
+            int pcmOffset = sg * FRAMES_PER_SOUNDGROUP * 2;
+            encodeSoundUnit(left, pcmInterleavedCluster, pcmOffset, 2 * sg);
+            encodeSoundUnit(right, pcmInterleavedCluster, pcmOffset + 1, 2 * sg + 1);
+        }
+
+        if (lastCluster) {
+            // next track starts from silence
+            left.reset();
+            right.reset();
+        }
+        return sectors;
+    }
+
+    @Override
+    public int warmUpFrames() {
+        return FRAMES_PER_SOUNDGROUP;
+    }
+
+    @Override
+    public void warmUp(short[] precedingInterleaved) {
+        Objects.requireNonNull(precedingInterleaved, "precedingInterleaved");
+        if (precedingInterleaved.length != FRAMES_PER_SOUNDGROUP * 2) {
+            throw new IllegalArgumentException("precedingInterleaved must be " + (FRAMES_PER_SOUNDGROUP * 2) + " samples");
+        }
+        left.reset();
+        right.reset();
+        left.encode(precedingInterleaved, 0, 2, discarded, 0);
+        right.encode(precedingInterleaved, 1, 2, discarded, 0);
+    }
+
+    private void encodeSoundUnit(Atrac1Encoder encoder, short[] pcm, int pcmOffset, int soundUnit) {
+        byte[] raw = sectors[soundUnit / SOUND_UNITS_PER_SECTOR].rawUnsafe();
+        int off = MiniDiscSector.AUDIO_BLOCK_OFFSET + (soundUnit % SOUND_UNITS_PER_SECTOR) * Atrac1.SOUND_UNIT_BYTES;
+        encoder.encode(pcm, pcmOffset, 2, raw, off);
+    }
+}
@@ -0,0 +1,133 @@
+package minidisc;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static minidisc.MiniDiscSector.TOC_DATA_BYTES;
+import static minidisc.MiniDiscSector.TOC_DATA_OFFSET;
+
+/**
+ * UtocStore on the UTOC sectors themselves (sectors 0..3 of cluster UTOC_START).
+ * <p>
+ * The store remembers the sector data last read from / written to an image. A commit compares each
+ * UTOC sector against it and only rewrites the sectors that changed: a title edit is 1 sector write,
+ * adding or removing a track 1 or 2. Through a LayoutCheckedMiniDiscImage, sectors go through
+ * writeTocSector (UTOC area check); otherwise they are built with MiniDiscSector.fromAddressAndTocData.
+ * <p>
+ * Every sector written carries its EDC (MiniDiscEdc.writeToc, in the spare tail after slot 255). read()
+ * checks it when present and hands the model the data with the EDC field zeroed.
+ * <p>
+ * An image whose UTOC sectors are all zeros (freshly created) reads as a blank UTOC.
+ * The commit does not flush the image. Single thread.
+ */
+public final class BinaryUtocStore implements UtocStore {
+
+    private static final int UTOC_CLUSTER = MiniDiscLayout.UTOC_START;
+
+    private MiniDiscImage knownImage;                                   // image 'known' describes
+    private final byte[][] known = new byte[Utoc.SECTOR_COUNT][];       // sector data as on the image
+    private int lastCommitSectorWrites;
+
+    @Override
+    public Utoc read(MiniDiscImage image) throws IOException {
+        Objects.requireNonNull(image, "image");
+        byte[][] data = readSectorData(image);
+        remember(image, data);
+
+        boolean blank = true;
+        for (byte[] d : data) {
+            if (!isZero(d)) {
+                blank = false;
+                break;
+            }
+        }
+        return blank ? Utoc.blank(discType(image)) : Utoc.fromSectorData(data);
+    }
+
+    /**
+     * Commit: rewrites the UTOC sectors whose data differs from the image.
+     */
+    @Override
+    public void write(MiniDiscImage image, Utoc utoc) throws IOException {
+        Objects.requireNonNull(image, "image");
+        Objects.requireNonNull(utoc, "utoc");
+        if (knownImage != image) {
+            // never read through this store: compare with what the image holds
+            remember(image, readSectorData(image));
+        }
+
+        int writes = 0;
+        for (int s = 0; s < Utoc.SECTOR_COUNT; s++) {
+            byte[] data = utoc.sectorData(s);
+            if (Arrays.equals(known[s], data)) continue;
+
+            MiniDiscAddress addr = new MiniDiscAddress(UTOC_CLUSTER, s);
+            if (image instanceof LayoutCheckedMiniDiscImage checked) {
+                checked.writeTocSector(addr, data, true);
+            } else {
+                image.writeSector(UTOC_CLUSTER, s, MiniDiscSector.fromAddressAndTocData(addr, data, true).rawUnsafe());
+            }
+            known[s] = data.clone();
+            writes++;
+        }
+        lastCommitSectorWrites = writes;
+    }
+
+    /**
+     * Sectors rewritten by the last write(), 0..4.
+     */
+    public int lastCommitSectorWrites() {
+        return lastCommitSectorWrites;
+    }
+
+    private void remember(MiniDiscImage image, byte[][] data) {
+        knownImage = image;
+        for (int s = 0; s < Utoc.SECTOR_COUNT; s++) {
+            known[s] = data[s].clone();
+        }
+    }
+
+    /**
+     * @throws IOException if a non-blank sector is not a mode 2 sector at its own address, or fails its EDC
+     */
+    private static byte[][] readSectorData(MiniDiscImage image) throws IOException {
+        byte[][] data = new byte[Utoc.SECTOR_COUNT][];
+        byte[] raw = new byte[MiniDiscFormat.SECTOR_BYTES];
+        for (int s = 0; s < Utoc.SECTOR_COUNT; s++) {
+            image.readSector(UTOC_CLUSTER, s, raw);
+            if (!isZero(raw)) {
+                checkHeader(raw, s);
+                if (MiniDiscEdc.checkToc(raw, 0) == MiniDiscEdc.Status.BAD) {
+                    throw new IOException("UTOC sector " + s + ": EDC mismatch");
+                }
+            }
+            data[s] = Arrays.copyOfRange(raw, TOC_DATA_OFFSET, TOC_DATA_OFFSET + TOC_DATA_BYTES);
+            Arrays.fill(data[s], MiniDiscEdc.TOC_EDC_OFFSET - TOC_DATA_OFFSET, TOC_DATA_BYTES, (byte) 0);
+        }
+        return data;
+    }
+
+    private static void checkHeader(byte[] raw, int sectorIndex) throws IOException {
+        MiniDiscSectorView view = MiniDiscSectorView.of(raw, 0);
+        if (!view.hasDefaultSync() || view.clusterIndex() != UTOC_CLUSTER || view.sectorIndex() != sectorIndex
+                || view.modeCode() != MiniDiscSectorMode.MINI_DISC.code()) {
+            throw new IOException("Not a UTOC sector: cluster " + UTOC_CLUSTER + " sector " + sectorIndex
+                    + " (bad sync / address / mode)");
+        }
+    }
+
+    private static MiniDiscDiscType discType(MiniDiscImage image) throws IOException {
+        for (MiniDiscDiscType type : MiniDiscDiscType.values()) {
+            if (type.totalClusters() == image.nbOfClusters()) return type;
+        }
+        throw new IOException("Blank UTOC and unknown disc size: " + image.nbOfClusters() + " clusters");
+    }
+
+    private static boolean isZero(byte[] b) {
+        for (byte v : b) {
+            if (v != 0) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,208 @@
+package minidisc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * ClusterAllocator over the program area (PROGRAM_START..programEndExclusive).
+ * <p>
+ * - bitmap: 1 bit per program cluster (1 = in use), catches double frees / frees of free clusters
+ * - run index: free runs by start (TreeMap start -> length, to merge neighbours) and by size
+ *   (TreeSet of length << 32 | start, for best fit: smallest run that fits, lowest start on a tie)
+ * allocateContiguous and freeRange are O(log runs) + the bitmap update of the range.
+ * <p>
+ * fromUtoc rebuilds it from the free area chain (P-FRA): only whole free clusters are free.
+ * freeParts() gives the chain back for Utoc.setFreeParts. Methods are synchronized.
+ * Allocations, frees and failed allocations are counted in MiniDiscMetrics.global().
+ */
+public final class BitmapClusterAllocator implements ClusterAllocator {
+
+    private final int programStart;
+    private final int programEnd;                            // exclusive
+    private final long[] used;
+    private final TreeMap<Integer, Integer> runsByStart = new TreeMap<>();
+    private final TreeSet<Long> runsBySize = new TreeSet<>();
+    private int freeClusters;
+
+    /**
+     * Empty program area: everything free.
+     */
+    public BitmapClusterAllocator(MiniDiscDiscType type) {
+        Objects.requireNonNull(type, "type");
+        this.programStart = MiniDiscLayout.PROGRAM_START;
+        this.programEnd = type.programEndExclusive();
+        this.used = new long[(programEnd - programStart + 63) >>> 6];
+        addRun(programStart, programEnd - programStart);
+    }
+
+    /**
+     * Free clusters = whole clusters covered by the UTOC free area; everything else is in use.
+     * Parts outside the program area are ignored, overlapping parts are tolerated.
+     */
+    public static BitmapClusterAllocator fromUtoc(Utoc utoc, MiniDiscDiscType type) {
+        Objects.requireNonNull(utoc, "utoc");
+        BitmapClusterAllocator a = new BitmapClusterAllocator(type);
+        a.runsByStart.clear();
+        a.runsBySize.clear();
+        a.freeClusters = 0;
+        Arrays.fill(a.used, -1L);
+
+        for (Utoc.Part part : utoc.freeParts()) {
+            int first = part.start().soundGroupInCluster() == 0 ? part.firstCluster() : part.firstCluster() + 1;
+            int last = part.end().soundGroupInCluster() == MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER - 1
+                    ? part.lastCluster() : part.lastCluster() - 1;
+            first = Math.max(first, a.programStart);
+            last = Math.min(last, a.programEnd - 1);
+            if (first <= last) a.setBits(first, last - first + 1, false);
+        }
+
+        // runs from the bitmap, one scan
+        int runStart = -1;
+        for (int c = a.programStart; c <= a.programEnd; c++) {
+            boolean free = c < a.programEnd && !a.isUsed(c);
+            if (free && runStart < 0) {
+                runStart = c;
+            } else if (!free && runStart >= 0) {
+                a.addRun(runStart, c - runStart);
+                runStart = -1;
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Best fit: the smallest free run holding 'clusters', allocated from its start.
+     *
+     * @return first cluster of the range
+     * @throws IOException if no free run is large enough
+     */
+    @Override
+    public synchronized int allocateContiguous(int clusters) throws IOException {
+        if (clusters <= 0) throw new IllegalArgumentException("clusters must be > 0: " + clusters);
+        Long fit = runsBySize.ceiling((long) clusters << 32);
+        if (fit == null) {
+            MiniDiscMetrics.global().add(MiniDiscMetrics.Counter.ALLOCATION_FAILURES, 1);
+            throw new IOException("No free run of " + clusters + " clusters (free: " + freeClusters
+                    + ", largest run: " + largestFreeRun() + ")");
+        }
+        int start = (int) (long) fit;
+        int length = (int) (fit >>> 32);
+        removeRun(start, length);
+        if (length > clusters) addRun(start + clusters, length - clusters);
+        setBits(start, clusters, true);
+        recordActivity(false, start, clusters);
+        return start;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the range leaves the program area or is not entirely in use
+     */
+    @Override
+    public synchronized void freeRange(int startCluster, int count) {
+        if (count <= 0 || startCluster < programStart || startCluster > programEnd - count) {
+            throw new IllegalArgumentException("Range out of program area: " + startCluster + " + " + count);
+        }
+        for (int c = startCluster; c < startCluster + count; c++) {
+            if (!isUsed(c)) throw new IllegalArgumentException("Cluster already free: " + c);
+        }
+        setBits(startCluster, count, false);
+
+        int start = startCluster;
+        int length = count;
+        Map.Entry<Integer, Integer> before = runsByStart.floorEntry(start);
+        if (before != null && before.getKey() + before.getValue() == start) {
+            removeRun(before.getKey(), before.getValue());
+            start = before.getKey();
+            length += before.getValue();
+        }
+        Integer afterLength = runsByStart.get(startCluster + count);
+        if (afterLength != null) {
+            removeRun(startCluster + count, afterLength);
+            length += afterLength;
+        }
+        addRun(start, length);
+        recordActivity(true, startCluster, count);
+    }
+
+    /**
+     * MiniDiscMetrics.global() counters + MiniDiscEvents.ClusterAllocation.
+     */
+    private void recordActivity(boolean free, int firstCluster, int clusters) {
+        MiniDiscMetrics.global().add(free ? MiniDiscMetrics.Counter.CLUSTERS_FREED
+                : MiniDiscMetrics.Counter.CLUSTERS_ALLOCATED, clusters);
+        MiniDiscEvents.ClusterAllocation event = new MiniDiscEvents.ClusterAllocation();
+        if (event.shouldCommit()) {
+            event.free = free;
+            event.firstCluster = firstCluster;
+            event.clusters = clusters;
+            event.freeClustersAfter = freeClusters;
+            event.commit();
+        }
+    }
+
+    public synchronized boolean isFree(int cluster) {
+        if (cluster < programStart || cluster >= programEnd) {
+            throw new IllegalArgumentException("Cluster not in program area: " + cluster);
+        }
+        return !isUsed(cluster);
+    }
+
+    public synchronized int freeClusters() {
+        return freeClusters;
+    }
+
+    public synchronized int freeRunCount() {
+        return runsByStart.size();
+    }
+
+    public synchronized int largestFreeRun() {
+        return runsBySize.isEmpty() ? 0 : (int) (runsBySize.last() >>> 32);
+    }
+
+    /**
+     * Free runs as UTOC parts (whole clusters, by start), for Utoc.setFreeParts.
+     */
+    public synchronized List<Utoc.Part> freeParts(int mode) {
+        List<Utoc.Part> parts = new ArrayList<>(runsByStart.size());
+        for (Map.Entry<Integer, Integer> run : runsByStart.entrySet()) {
+            parts.add(Utoc.Part.ofClusters(run.getKey(), run.getValue(), mode));
+        }
+        return parts;
+    }
+
+    private void addRun(int start, int length) {
+        runsByStart.put(start, length);
+        runsBySize.add(((long) length << 32) | start);
+        freeClusters += length;
+    }
+
+    private void removeRun(int start, int length) {
+        runsByStart.remove(start);
+        runsBySize.remove(((long) length << 32) | start);
+        freeClusters -= length;
+    }
+
+    private boolean isUsed(int cluster) {
+        int i = cluster - programStart;
+        return (used[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private void setBits(int startCluster, int count, boolean value) {
+        int from = startCluster - programStart;
+        int to = from + count;                                // exclusive
+        while (from < to) {
+            int word = from >>> 6;
+            int bits = Math.min(to - from, 64 - (from & 63));
+            long mask = (bits == 64 ? -1L : ((1L << bits) - 1)) << (from & 63);
+            if (value) used[word] |= mask;
+            else used[word] &= ~mask;
+            from += bits;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package minidisc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+import static minidisc.MiniDiscFormat.SECTORS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+
+/**
+ * Cluster cache in front of another image: readSector / writeSector on a few hot clusters
+ * (TOC, UTOC) stop costing one delegate I/O each.
+ * <p>
+ * - pool: 'capacity' cluster slots in one direct (off-heap) buffer, loaded with readCluster
+ * - eviction: CLOCK (reference bit, second chance) or LRU (oldest use); pinned slots are never evicted
+ * - WRITE_BACK: writeSector only touches the slot (loaded if needed), dirty slots go to the delegate
+ *   on eviction / flush() / close(); WRITE_THROUGH: the delegate is written at once, a cached copy is kept up to date
+ * - readClusters / writeClusters go straight to the delegate (bulk transfers do not flush the cache):
+ *   reads get the dirty cached clusters patched over, writes refresh the cached copies
+ * <p>
+ * Closes the delegate on close(). Methods are synchronized.
+ */
+public final class CachingMiniDiscImage implements MiniDiscImage {
+
+    public enum WritePolicy {
+        WRITE_BACK,
+        WRITE_THROUGH
+    }
+
+    public enum Eviction {
+        CLOCK,
+        LRU
+    }
+
+    public record Stats(long hits, long misses, long evictions, long writeBacks) {
+        public double hitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private final MiniDiscImage delegate;
+    private final int capacity;
+    private final WritePolicy writePolicy;
+    private final Eviction eviction;
+
+    private final ByteBuffer pool;
+    private final int[] slotOfCluster;      // -1: not cached
+    private final int[] clusterOfSlot;      // -1: free slot
+    private final boolean[] referenced;     // CLOCK bit
+    private final long[] lastUse;           // LRU stamp
+    private final boolean[] dirty;
+    private final boolean[] pinned;
+    private final byte[] transfer = new byte[CLUSTER_BYTES];
+    private int hand;
+    private long tick;
+    private int pinnedSlots;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writeBacks;
+
+    public CachingMiniDiscImage(MiniDiscImage delegate, int capacity, WritePolicy writePolicy, Eviction eviction) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.writePolicy = Objects.requireNonNull(writePolicy, "writePolicy");
+        this.eviction = Objects.requireNonNull(eviction, "eviction");
+        if (capacity < 1 || (long) capacity * CLUSTER_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        this.capacity = capacity;
+        this.pool = ByteBuffer.allocateDirect(capacity * CLUSTER_BYTES);
+        this.slotOfCluster = new int[delegate.nbOfClusters()];
+        this.clusterOfSlot = new int[capacity];
+        this.referenced = new boolean[capacity];
+        this.lastUse = new long[capacity];
+        this.dirty = new boolean[capacity];
+        this.pinned = new boolean[capacity];
+        Arrays.fill(slotOfCluster, -1);
+        Arrays.fill(clusterOfSlot, -1);
+    }
+
+    /**
+     * Loads clusters first..first+count-1 and keeps them cached until unpin.
+     */
+    public synchronized void pin(int firstCluster, int count) throws IOException {
+        checkRange(firstCluster, count);
+        int toPin = 0;
+        for (int c = firstCluster; c < firstCluster + count; c++) {
+            int slot = slotOfCluster[c];
+            if (slot < 0 || !pinned[slot]) toPin++;
+        }
+        if (pinnedSlots + toPin >= capacity) {
+            throw new IllegalStateException("Cannot pin " + toPin + " more clusters: capacity " + capacity
+                    + ", " + pinnedSlots + " already pinned (one slot must stay free)");
+        }
+        for (int c = firstCluster; c < firstCluster + count; c++) {
+            int slot = slotFor(c, false);
+            if (!pinned[slot]) {
+                pinned[slot] = true;
+                pinnedSlots++;
+            }
+        }
+    }
+
+    public synchronized void unpin(int firstCluster, int count) {
+        checkRange(firstCluster, count);
+        for (int c = firstCluster; c < firstCluster + count; c++) {
+            int slot = slotOfCluster[c];
+            if (slot >= 0 && pinned[slot]) {
+                pinned[slot] = false;
+                pinnedSlots--;
+            }
+        }
+    }
+
+    /**
+     * Pins the TOC (cluster LEAD_IN_START) and the UTOC (sectors 0..3 of cluster UTOC_START): 2 slots,
+     * so any capacity >= 3 will do. The rest of the system area is not read by the UTOC store.
+     */
+    public void pinTocAndUtoc() throws IOException {
+        pin(MiniDiscLayout.LEAD_IN_START, 1);
+        pin(MiniDiscLayout.UTOC_START, 1);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, writeBacks);
+    }
+
+    @Override
+    public int nbOfClusters() {
+        return delegate.nbOfClusters();
+    }
+
+    @Override
+    public synchronized void readSector(int clusterIndex, int sectorIndex, byte[] out2352) throws IOException {
+        validateAddress(clusterIndex, sectorIndex);
+        checkSectorBuffer(out2352, "out2352");
+        int slot = slotFor(clusterIndex, true);
+        pool.get(slotOffset(slot) + sectorIndex * SECTOR_BYTES, out2352, 0, SECTOR_BYTES);
+    }
+
+    @Override
+    public synchronized void writeSector(int clusterIndex, int sectorIndex, byte[] in2352) throws IOException {
+        validateAddress(clusterIndex, sectorIndex);
+        checkSectorBuffer(in2352, "in2352");
+        if (writePolicy == WritePolicy.WRITE_THROUGH) {
+            delegate.writeSector(clusterIndex, sectorIndex, in2352);
+            int slot = slotOfCluster[clusterIndex];
+            if (slot >= 0) {
+                pool.put(slotOffset(slot) + sectorIndex * SECTOR_BYTES, in2352, 0, SECTOR_BYTES);
+                touch(slot);
+            }
+            return;
+        }
+        int slot = slotFor(clusterIndex, true);
+        pool.put(slotOffset(slot) + sectorIndex * SECTOR_BYTES, in2352, 0, SECTOR_BYTES);
+        dirty[slot] = true;
+    }
+
+    @Override
+    public synchronized void readClusters(int firstClusterIndex, int clusterCount, byte[] out) throws IOException {
+        MiniDiscImage.checkClusterRange(this, firstClusterIndex, clusterCount, out, "out");
+        delegate.readClusters(firstClusterIndex, clusterCount, out);
+        for (int i = 0; i < clusterCount; i++) {
+            int slot = slotOfCluster[firstClusterIndex + i];
+            if (slot >= 0 && dirty[slot]) {
+                pool.get(slotOffset(slot), out, i * CLUSTER_BYTES, CLUSTER_BYTES);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void writeClusters(int firstClusterIndex, int clusterCount, byte[] in) throws IOException {
+        MiniDiscImage.checkClusterRange(this, firstClusterIndex, clusterCount, in, "in");
+        delegate.writeClusters(firstClusterIndex, clusterCount, in);
+        for (int i = 0; i < clusterCount; i++) {
+            int slot = slotOfCluster[firstClusterIndex + i];
+            if (slot >= 0) {
+                pool.put(slotOffset(slot), in, i * CLUSTER_BYTES, CLUSTER_BYTES);
+                dirty[slot] = false;
+            }
+        }
+    }
+
+    /**
+     * Writes back the dirty clusters (in cluster order), then flushes the delegate.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        for (int c = 0; c < slotOfCluster.length; c++) {
+            int slot = slotOfCluster[c];
+            if (slot >= 0 && dirty[slot]) writeBack(slot);
+        }
+        delegate.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Slot holding the cluster, loaded from the delegate on a miss.
+     */
+    private int slotFor(int cluster, boolean count) throws IOException {
+        int slot = slotOfCluster[cluster];
+        if (slot >= 0) {
+            if (count) hits++;
+            touch(slot);
+            return slot;
+        }
+        if (count) misses++;
+        slot = victim();
+        delegate.readCluster(cluster, transfer);
+        pool.put(slotOffset(slot), transfer, 0, CLUSTER_BYTES);
+        clusterOfSlot[slot] = cluster;
+        slotOfCluster[cluster] = slot;
+        dirty[slot] = false;
+        touch(slot);
+        return slot;
+    }
+
+    /**
+     * A free slot, or an unpinned one emptied (written back first if dirty).
+     */
+    private int victim() throws IOException {
+        int slot = -1;
+        if (eviction == Eviction.CLOCK) {
+            for (int steps = 0; steps < 2 * capacity + 1 && slot < 0; steps++) {
+                int s = hand;
+                hand = (hand + 1) % capacity;
+                if (clusterOfSlot[s] < 0) {
+                    slot = s;
+                } else if (!pinned[s]) {
+                    if (referenced[s]) referenced[s] = false;
+                    else slot = s;
+                }
+            }
+        } else {
+            long oldest = Long.MAX_VALUE;
+            for (int s = 0; s < capacity; s++) {
+                if (clusterOfSlot[s] < 0) {
+                    slot = s;
+                    break;
+                }
+                if (!pinned[s] && lastUse[s] < oldest) {
+                    oldest = lastUse[s];
+                    slot = s;
+                }
+            }
+        }
+        if (slot < 0) throw new IllegalStateException("All " + capacity + " cache slots are pinned");
+
+        int old = clusterOfSlot[slot];
+        if (old >= 0) {
+            if (dirty[slot]) writeBack(slot);
+            slotOfCluster[old] = -1;
+            clusterOfSlot[slot] = -1;
+            evictions++;
+        }
+        return slot;
+    }
+
+    private void writeBack(int slot) throws IOException {
+        pool.get(slotOffset(slot), transfer, 0, CLUSTER_BYTES);
+        delegate.writeCluster(clusterOfSlot[slot], transfer);
+        dirty[slot] = false;
+        writeBacks++;
+    }
+
+    private void touch(int slot) {
+        referenced[slot] = true;
+        lastUse[slot] = ++tick;
+    }
+
+    private static int slotOffset(int slot) {
+        return slot * CLUSTER_BYTES;
+    }
+
+    private void checkRange(int firstCluster, int count) {
+        if (count <= 0 || firstCluster < 0 || firstCluster > slotOfCluster.length - count) {
+            throw new IllegalArgumentException("cluster range out of image: " + firstCluster + " + " + count);
+        }
+    }
+
+    private void validateAddress(int clusterIndex, int sectorIndex) {
+        if (clusterIndex < 0 || clusterIndex >= slotOfCluster.length) {
+            throw new IllegalArgumentException("clusterIndex out of range: " + clusterIndex);
+        }
+        if (sectorIndex < 0 || sectorIndex >= SECTORS_PER_CLUSTER) {
+            throw new IllegalArgumentException("sectorIndex out of range: " + sectorIndex);
+        }
+    }
+
+    private static void checkSectorBuffer(byte[] b, String name) {
+        Objects.requireNonNull(b, name);
+        if (b.length != SECTOR_BYTES) {
+            throw new IllegalArgumentException(name + " must be exactly " + SECTOR_BYTES + " bytes");
+        }
+    }
+}
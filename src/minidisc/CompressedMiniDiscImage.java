@@ -0,0 +1,398 @@
+package minidisc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+import static minidisc.MiniDiscFormat.SECTORS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+
+/**
+ * .mdz container: every cluster compressed on its own (Deflate), random access through an index.
+ * <p>
+ * Layout:
+ * - header, 16 bytes: magic "MDZ1", version, nbOfClusters, 0
+ * - index: nbOfClusters entries of 12 bytes (offset long, length int)
+ *   length 0 = all-zero cluster (no data), length 84672 = stored as is (did not compress)
+ * - cluster data, in any order
+ * A cluster is found in O(1): one index lookup (index kept in memory) + one positional read.
+ * <p>
+ * The cacheClusters most recently used clusters stay decoded (LRU). readClusters decodes straight into
+ * the caller's buffer without going through the cache, so a sequential scan does not flush it.
+ * Writes: writeClusters compresses and appends at once; writeSector patches the cached cluster,
+ * compressed and appended when evicted, on flush() or close(). The index entry is rewritten after
+ * the data. Rewritten clusters leave their old data behind: compress() again to reclaim it.
+ * <p>
+ * Methods are synchronized.
+ */
+public final class CompressedMiniDiscImage implements MiniDiscImage {
+
+    public static final int MAGIC = 0x4D445A31; // "MDZ1"
+    public static final int DEFAULT_CACHE_CLUSTERS = 16;
+
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int INDEX_ENTRY_BYTES = 12;
+    private static final int COPY_BATCH_CLUSTERS = 32;
+
+    private final FileChannel channel;
+    private final boolean writable;
+    private final int nbOfClusters;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final LinkedHashMap<Integer, Cached> cache;
+    private final int cacheClusters;
+    private final Inflater inflater = new Inflater();
+    private final Deflater deflater;
+    private final byte[] packed = new byte[CLUSTER_BYTES];
+    private long end;                                       // append position
+
+    private static final class Cached {
+        final byte[] data = new byte[CLUSTER_BYTES];
+        boolean dirty;
+    }
+
+    private CompressedMiniDiscImage(FileChannel channel, boolean writable, int nbOfClusters, int cacheClusters, int level) {
+        this.channel = channel;
+        this.writable = writable;
+        this.nbOfClusters = nbOfClusters;
+        this.offsets = new long[nbOfClusters];
+        this.lengths = new int[nbOfClusters];
+        this.cacheClusters = cacheClusters;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.deflater = new Deflater(level);
+        this.end = indexEnd(nbOfClusters);
+    }
+
+    /**
+     * Writes src as a new .mdz file (existing file replaced).
+     *
+     * @param level Deflater level (Deflater.BEST_SPEED .. BEST_COMPRESSION)
+     */
+    public static void compress(MiniDiscImage src, Path dst, int level) throws IOException {
+        Objects.requireNonNull(src, "src");
+        int n = src.nbOfClusters();
+        try (FileChannel ch = FileChannel.open(dst, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CompressedMiniDiscImage out = new CompressedMiniDiscImage(ch, true, n, 0, level);
+            try {
+                out.writeHeaderAndIndex();
+                byte[] batch = new byte[COPY_BATCH_CLUSTERS * CLUSTER_BYTES];
+                for (int c = 0; c < n; c += COPY_BATCH_CLUSTERS) {
+                    int count = Math.min(COPY_BATCH_CLUSTERS, n - c);
+                    src.readClusters(c, count, batch);
+                    for (int i = 0; i < count; i++) {
+                        out.store(c + i, batch, i * CLUSTER_BYTES, false);
+                    }
+                }
+                out.writeIndex();
+                ch.force(true);
+            } finally {
+                out.inflater.end();
+                out.deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Copies the clusters of an .mdz into dst (all-zero clusters are skipped: dst is expected zeroed).
+     */
+    public static void decompress(Path mdz, MiniDiscImage dst) throws IOException {
+        Objects.requireNonNull(dst, "dst");
+        try (CompressedMiniDiscImage in = open(mdz, false, 0)) {
+            if (in.nbOfClusters != dst.nbOfClusters()) {
+                throw new IOException("Cluster count mismatch: .mdz has " + in.nbOfClusters + ", target " + dst.nbOfClusters());
+            }
+            byte[] cluster = new byte[CLUSTER_BYTES];
+            for (int c = 0; c < in.nbOfClusters; c++) {
+                if (in.lengths[c] == 0) continue;
+                in.decode(c, cluster, 0);
+                dst.writeCluster(c, cluster);
+            }
+            dst.flush();
+        }
+    }
+
+    public static CompressedMiniDiscImage open(Path mdz, boolean writable) throws IOException {
+        return open(mdz, writable, DEFAULT_CACHE_CLUSTERS);
+    }
+
+    public static CompressedMiniDiscImage open(Path mdz, boolean writable, int cacheClusters) throws IOException {
+        if (cacheClusters < 0) throw new IllegalArgumentException("cacheClusters must be >= 0: " + cacheClusters);
+        FileChannel ch = writable
+                ? FileChannel.open(mdz, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(mdz, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(ch, header, 0L);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not an .mdz file: " + mdz);
+            }
+            int n = header.getInt(8);
+            if (n <= 0) throw new IOException("Invalid cluster count in .mdz: " + n);
+
+            // sector writes need at least one cached cluster to land in
+            int cache = writable ? Math.max(1, cacheClusters) : cacheClusters;
+            CompressedMiniDiscImage img = new CompressedMiniDiscImage(ch, writable, n, cache, Deflater.BEST_SPEED);
+            ByteBuffer index = ByteBuffer.allocate(n * INDEX_ENTRY_BYTES);
+            readFully(ch, index, HEADER_BYTES);
+            long size = ch.size();
+            for (int c = 0; c < n; c++) {
+                long off = index.getLong(c * INDEX_ENTRY_BYTES);
+                int len = index.getInt(c * INDEX_ENTRY_BYTES + 8);
+                if (len < 0 || len > CLUSTER_BYTES || (len > 0 && (off < indexEnd(n) || off + len > size))) {
+                    throw new IOException("Corrupt .mdz index entry for cluster " + c);
+                }
+                img.offsets[c] = off;
+                img.lengths[c] = len;
+            }
+            img.end = Math.max(size, indexEnd(n));
+            return img;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * true if the file starts with the .mdz magic.
+     */
+    public static boolean isMdz(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(4);
+            while (b.hasRemaining()) {
+                if (ch.read(b, b.position()) < 0) return false;
+            }
+            return b.getInt(0) == MAGIC;
+        }
+    }
+
+    @Override
+    public int nbOfClusters() {
+        return nbOfClusters;
+    }
+
+    /**
+     * Bytes of cluster data in the file (header + index excluded), dead data included.
+     */
+    public synchronized long storedBytes() {
+        return end - indexEnd(nbOfClusters);
+    }
+
+    @Override
+    public synchronized void readSector(int clusterIndex, int sectorIndex, byte[] out2352) throws IOException {
+        validateAddress(clusterIndex, sectorIndex);
+        checkSectorBuffer(out2352, "out2352");
+        System.arraycopy(cached(clusterIndex).data, sectorIndex * SECTOR_BYTES, out2352, 0, SECTOR_BYTES);
+    }
+
+    @Override
+    public synchronized void writeSector(int clusterIndex, int sectorIndex, byte[] in2352) throws IOException {
+        ensureWritable();
+        validateAddress(clusterIndex, sectorIndex);
+        checkSectorBuffer(in2352, "in2352");
+        Cached c = cached(clusterIndex);
+        System.arraycopy(in2352, 0, c.data, sectorIndex * SECTOR_BYTES, SECTOR_BYTES);
+        c.dirty = true;
+    }
+
+    @Override
+    public synchronized void readClusters(int firstClusterIndex, int clusterCount, byte[] out) throws IOException {
+        MiniDiscImage.checkClusterRange(this, firstClusterIndex, clusterCount, out, "out");
+        for (int i = 0; i < clusterCount; i++) {
+            int c = firstClusterIndex + i;
+            Cached hit = cache.get(c);
+            if (hit != null) {
+                System.arraycopy(hit.data, 0, out, i * CLUSTER_BYTES, CLUSTER_BYTES);
+            } else {
+                decode(c, out, i * CLUSTER_BYTES);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void writeClusters(int firstClusterIndex, int clusterCount, byte[] in) throws IOException {
+        ensureWritable();
+        MiniDiscImage.checkClusterRange(this, firstClusterIndex, clusterCount, in, "in");
+        for (int i = 0; i < clusterCount; i++) {
+            int c = firstClusterIndex + i;
+            cache.remove(c);
+            store(c, in, i * CLUSTER_BYTES, true);
+        }
+    }
+
+    /**
+     * Writes back the modified cached clusters, then forces the file.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (!writable) return;
+        for (Map.Entry<Integer, Cached> e : cache.entrySet()) {
+            if (e.getValue().dirty) {
+                store(e.getKey(), e.getValue().data, 0, true);
+                e.getValue().dirty = false;
+            }
+        }
+        channel.force(true);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            inflater.end();
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    private Cached cached(int cluster) throws IOException {
+        Cached c = cache.get(cluster);
+        if (c != null) return c;
+        if (cacheClusters == 0) {
+            // read-only without cache
+            c = new Cached();
+            decode(cluster, c.data, 0);
+            return c;
+        }
+        while (cache.size() >= cacheClusters) {
+            Iterator<Map.Entry<Integer, Cached>> it = cache.entrySet().iterator();
+            Map.Entry<Integer, Cached> eldest = it.next();
+            if (eldest.getValue().dirty) store(eldest.getKey(), eldest.getValue().data, 0, true);
+            it.remove();
+        }
+        c = new Cached();
+        decode(cluster, c.data, 0);
+        cache.put(cluster, c);
+        return c;
+    }
+
+    private void decode(int cluster, byte[] out, int offset) throws IOException {
+        int len = lengths[cluster];
+        if (len == 0) {
+            Arrays.fill(out, offset, offset + CLUSTER_BYTES, (byte) 0);
+            return;
+        }
+        if (len == CLUSTER_BYTES) {
+            readFully(channel, ByteBuffer.wrap(out, offset, CLUSTER_BYTES), offsets[cluster]);
+            return;
+        }
+        readFully(channel, ByteBuffer.wrap(packed, 0, len), offsets[cluster]);
+        inflater.reset();
+        inflater.setInput(packed, 0, len);
+        try {
+            int n = inflater.inflate(out, offset, CLUSTER_BYTES);
+            if (n != CLUSTER_BYTES || !inflater.finished()) {
+                throw new IOException("Corrupt .mdz data for cluster " + cluster + ": " + n + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt .mdz data for cluster " + cluster, e);
+        }
+    }
+
+    /**
+     * Compresses a cluster, appends it and updates its index entry (on disk too if writeEntry).
+     */
+    private void store(int cluster, byte[] src, int offset, boolean writeEntry) throws IOException {
+        int len;
+        if (isZero(src, offset, CLUSTER_BYTES)) {
+            len = 0;
+        } else {
+            deflater.reset();
+            deflater.setInput(src, offset, CLUSTER_BYTES);
+            deflater.finish();
+            int n = deflater.deflate(packed, 0, packed.length);
+            if (deflater.finished() && n < CLUSTER_BYTES) {
+                len = n;
+                writeFully(channel, ByteBuffer.wrap(packed, 0, n), end);
+            } else {
+                len = CLUSTER_BYTES;
+                writeFully(channel, ByteBuffer.wrap(src, offset, CLUSTER_BYTES), end);
+            }
+        }
+        offsets[cluster] = len == 0 ? 0L : end;
+        lengths[cluster] = len;
+        end += len;
+        if (writeEntry) {
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            entry.putLong(offsets[cluster]).putInt(len).flip();
+            writeFully(channel, entry, HEADER_BYTES + (long) cluster * INDEX_ENTRY_BYTES);
+        }
+    }
+
+    private void writeHeaderAndIndex() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(nbOfClusters).putInt(0).flip();
+        writeFully(channel, header, 0L);
+        writeIndex();
+    }
+
+    private void writeIndex() throws IOException {
+        ByteBuffer index = ByteBuffer.allocate(nbOfClusters * INDEX_ENTRY_BYTES);
+        for (int c = 0; c < nbOfClusters; c++) {
+            index.putLong(offsets[c]).putInt(lengths[c]);
+        }
+        index.flip();
+        writeFully(channel, index, HEADER_BYTES);
+    }
+
+    private void ensureWritable() throws IOException {
+        if (!writable) throw new IOException(".mdz image opened read-only");
+    }
+
+    private static long indexEnd(int nbOfClusters) {
+        return HEADER_BYTES + (long) nbOfClusters * INDEX_ENTRY_BYTES;
+    }
+
+    private void validateAddress(int clusterIndex, int sectorIndex) {
+        if (clusterIndex < 0 || clusterIndex >= nbOfClusters) {
+            throw new IllegalArgumentException("clusterIndex out of range: " + clusterIndex);
+        }
+        if (sectorIndex < 0 || sectorIndex >= SECTORS_PER_CLUSTER) {
+            throw new IllegalArgumentException("sectorIndex out of range: " + sectorIndex);
+        }
+    }
+
+    private static void checkSectorBuffer(byte[] b, String name) {
+        Objects.requireNonNull(b, name);
+        if (b.length != SECTOR_BYTES) {
+            throw new IllegalArgumentException(name + " must be exactly " + SECTOR_BYTES + " bytes");
+        }
+    }
+
+    private static boolean isZero(byte[] b, int from, int len) {
+        for (int i = from, e = from + len; i < e; i++) {
+            if (b[i] != 0) return false;
+        }
+        return true;
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer dst, long pos) throws IOException {
+        long p = pos;
+        while (dst.hasRemaining()) {
+            int n = ch.read(dst, p);
+            if (n < 0) throw new EOFException("Unexpected end of .mdz at " + p);
+            p += n;
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer src, long pos) throws IOException {
+        long p = pos;
+        while (src.hasRemaining()) {
+            p += ch.write(src, p);
+        }
+    }
+}
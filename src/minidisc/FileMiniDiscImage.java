@@ -1,8 +1,12 @@
 package minidisc;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * # MD60
@@ -10,21 +14,43 @@ import java.util.Objects;
  * <p>
  * # MD74
  * dd if=/dev/zero of=md74.bin bs=2352 count=$((2367*36))
+ * <p>
+ * Thread-safe: only positional FileChannel reads/writes, no shared file position.
+ * Readers take no lock; writers lock the stripe(s) of the clusters they write
+ * (cluster % WRITE_STRIPES, taken in ascending order), so writes to one cluster never interleave
+ * while writers on other clusters run in parallel.
+ * As with any FileChannel, interrupting a thread in the middle of an I/O closes the image for all threads.
  */
 public final class FileMiniDiscImage implements MiniDiscImage {
-    private final RandomAccessFile raf;
+    private static final int WRITE_STRIPES = 64;
+
+    private final RandomAccessFile raf;                 // null when opened from a channel
+    private final FileChannel channel;
     private final int nbOfClusters;
+    private final ReentrantLock[] stripes = new ReentrantLock[WRITE_STRIPES];
 
     public FileMiniDiscImage(RandomAccessFile raf, int nbOfClusters) throws IOException {
-        this.raf = Objects.requireNonNull(raf, "raf");
+        this(Objects.requireNonNull(raf, "raf"), raf.getChannel(), nbOfClusters);
+    }
+
+    public FileMiniDiscImage(FileChannel channel, int nbOfClusters) throws IOException {
+        this(null, Objects.requireNonNull(channel, "channel"), nbOfClusters);
+    }
+
+    private FileMiniDiscImage(RandomAccessFile raf, FileChannel channel, int nbOfClusters) throws IOException {
+        this.raf = raf;
+        this.channel = channel;
         if (nbOfClusters <= 0) throw new IllegalArgumentException("nbOfClusters must be > 0: " + nbOfClusters);
         this.nbOfClusters = nbOfClusters;
 
         long expectedSize = expectedSizeBytes(nbOfClusters);
-        long actualSize = raf.length();
+        long actualSize = channel.size();
         if (actualSize != expectedSize) {
             throw new IllegalArgumentException("Invalid image size. expected=" + expectedSize + " actual=" + actualSize);
         }
+        for (int i = 0; i < WRITE_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
     }
 
     public static long expectedSizeBytes(int nbOfClusters) {
@@ -44,8 +70,7 @@ public final class FileMiniDiscImage implements MiniDiscImage {
             throw new IllegalArgumentException("out2352 must be exactly " + MiniDiscFormat.SECTOR_BYTES + " bytes");
         }
 
-        raf.seek(byteOffset(clusterIndex, sectorIndex));
-        raf.readFully(out2352);
+        readFully(ByteBuffer.wrap(out2352), byteOffset(clusterIndex, sectorIndex));
     }
 
     @Override
@@ -56,8 +81,69 @@ public final class FileMiniDiscImage implements MiniDiscImage {
             throw new IllegalArgumentException("in2352 must be exactly " + MiniDiscFormat.SECTOR_BYTES + " bytes");
         }
 
-        raf.seek(byteOffset(clusterIndex, sectorIndex));
-        raf.write(in2352);
+        ReentrantLock lock = stripes[clusterIndex % WRITE_STRIPES];
+        lock.lock();
+        try {
+            writeFully(ByteBuffer.wrap(in2352), byteOffset(clusterIndex, sectorIndex));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whole range in one positional read (no per-sector seek).
+     */
+    @Override
+    public void readClusters(int firstClusterIndex, int clusterCount, byte[] out) throws IOException {
+        MiniDiscImage.checkClusterRange(this, firstClusterIndex, clusterCount, out, "out");
+
+        readFully(ByteBuffer.wrap(out, 0, clusterCount * MiniDiscFormat.CLUSTER_BYTES), byteOffset(firstClusterIndex, 0));
+    }
+
+    /**
+     * Whole range in one positional write (no per-sector seek), under the stripes of all its clusters.
+     */
+    @Override
+    public void writeClusters(int firstClusterIndex, int clusterCount, byte[] in) throws IOException {
+        MiniDiscImage.checkClusterRange(this, firstClusterIndex, clusterCount, in, "in");
+
+        // stripes touched by the range, locked in ascending order (no deadlock between 2 ranges)
+        boolean[] touched = new boolean[WRITE_STRIPES];
+        for (int c = 0; c < Math.min(clusterCount, WRITE_STRIPES); c++) {
+            touched[(firstClusterIndex + c) % WRITE_STRIPES] = true;
+        }
+        int locked = 0;
+        try {
+            for (; locked < WRITE_STRIPES; locked++) {
+                if (touched[locked]) stripes[locked].lock();
+            }
+            writeFully(ByteBuffer.wrap(in, 0, clusterCount * MiniDiscFormat.CLUSTER_BYTES), byteOffset(firstClusterIndex, 0));
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                if (touched[i]) stripes[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        channel.force(true);
+    }
+
+    private void readFully(ByteBuffer dst, long pos) throws IOException {
+        long p = pos;
+        while (dst.hasRemaining()) {
+            int n = channel.read(dst, p);
+            if (n < 0) throw new EOFException("Unexpected end of image at " + p);
+            p += n;
+        }
+    }
+
+    private void writeFully(ByteBuffer src, long pos) throws IOException {
+        long p = pos;
+        while (src.hasRemaining()) {
+            p += channel.write(src, p);
+        }
     }
 
     private void validateAddress(int clusterIndex, int sectorIndex) {
@@ -76,6 +162,7 @@ public final class FileMiniDiscImage implements MiniDiscImage {
 
     @Override
     public void close() throws IOException {
-        raf.close();
+        if (raf != null) raf.close();
+        else channel.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,252 @@
+package minidisc;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+
+/**
+ * Copy / compare of raw image files limited to the clusters the UTOC uses:
+ * - lead-in + UTOC / system area (clusters 0 .. PROGRAM_START-1), always
+ * - the parts of every track
+ * Free and defective parts, and the lead-out, are skipped: a clone of a mostly empty MD80 costs the
+ * size of its tracks, and the rest of the destination stays sparse (holes read as zeros).
+ * cloneImage also leaves the all-zero clusters of the runs as holes (unwritten system clusters,
+ * source holes): only clusters holding data take space in the clone.
+ * <p>
+ * Bytes move between FileChannels (transferTo / direct buffers), never through byte[] sector by sector.
+ * Files only: .mdz images go through compress / decompress.
+ */
+public final class ImageReplicator {
+
+    public static final int COMPARE_BATCH_CLUSTERS = 32;
+
+    private ImageReplicator() {
+    }
+
+    /**
+     * Clusters [firstCluster, firstCluster + clusterCount).
+     */
+    public record Run(int firstCluster, int clusterCount) {
+        public Run {
+            if (firstCluster < 0 || clusterCount <= 0) {
+                throw new IllegalArgumentException("Bad run: " + firstCluster + " + " + clusterCount);
+            }
+        }
+
+        public int endExclusive() {
+            return firstCluster + clusterCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("0x%04X..0x%04X (%d cluster%s)", firstCluster, endExclusive() - 1,
+                    clusterCount, clusterCount == 1 ? "" : "s");
+        }
+    }
+
+    /**
+     * System area + track parts, sorted and merged.
+     *
+     * @throws IOException if a part lies outside the image
+     */
+    public static List<Run> usedRuns(Utoc utoc, int nbOfClusters) throws IOException {
+        Objects.requireNonNull(utoc, "utoc");
+        List<Run> runs = new ArrayList<>();
+        runs.add(new Run(0, Math.min(MiniDiscLayout.PROGRAM_START, nbOfClusters)));
+        for (int tno = utoc.firstTrack(); tno <= utoc.lastTrack(); tno++) {
+            for (Utoc.Part p : utoc.trackParts(tno)) {
+                if (p.lastCluster() >= nbOfClusters) {
+                    throw new IOException("Track " + tno + " part ends past the image: cluster " + p.lastCluster()
+                            + " of " + nbOfClusters);
+                }
+                runs.add(new Run(p.firstCluster(), p.clusterCount()));
+            }
+        }
+        return merge(runs);
+    }
+
+    /**
+     * Sorted, overlapping / adjacent runs joined.
+     */
+    public static List<Run> merge(List<Run> runs) {
+        List<Run> sorted = new ArrayList<>(runs);
+        sorted.sort(Comparator.comparingInt(Run::firstCluster));
+        List<Run> merged = new ArrayList<>();
+        for (Run r : sorted) {
+            Run last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && r.firstCluster() <= last.endExclusive()) {
+                int end = Math.max(last.endExclusive(), r.endExclusive());
+                merged.set(merged.size() - 1, new Run(last.firstCluster(), end - last.firstCluster()));
+            } else {
+                merged.add(r);
+            }
+        }
+        return merged;
+    }
+
+    public static long clusterCount(List<Run> runs) {
+        long n = 0;
+        for (Run r : runs) n += r.clusterCount();
+        return n;
+    }
+
+    /**
+     * New image file dst (replaced if it exists), nbOfClusters long, holding the runs of src.
+     * All-zero clusters are not written: they stay holes.
+     *
+     * @return bytes written
+     */
+    public static long cloneImage(Path src, Path dst, int nbOfClusters, List<Run> runs) throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(dst.toFile(), "rw")) {
+            out.setLength(0L);
+            out.setLength(MiniDiscFormat.expectedImageBytes(nbOfClusters)); // sparse
+            long copied = copyNonZeroClusters(src, out.getChannel(), nbOfClusters, runs);
+            out.getFD().sync();
+            return copied;
+        }
+    }
+
+    /**
+     * Overwrites the runs of an existing image file dst with those of src (same size expected).
+     *
+     * @return bytes copied
+     */
+    public static long copyRuns(Path src, Path dst, int nbOfClusters, List<Run> runs) throws IOException {
+        try (FileChannel out = FileChannel.open(dst, StandardOpenOption.WRITE)) {
+            checkSize(dst, out, nbOfClusters);
+            long copied = copyRuns(src, out, nbOfClusters, runs);
+            out.force(true);
+            return copied;
+        }
+    }
+
+    /**
+     * Clusters of the runs whose bytes differ between a and b, as merged runs.
+     */
+    public static List<Run> diff(Path a, Path b, int nbOfClusters, List<Run> runs) throws IOException {
+        List<Run> changed = new ArrayList<>();
+        ByteBuffer bufA = ByteBuffer.allocateDirect(COMPARE_BATCH_CLUSTERS * CLUSTER_BYTES);
+        ByteBuffer bufB = ByteBuffer.allocateDirect(COMPARE_BATCH_CLUSTERS * CLUSTER_BYTES);
+        try (FileChannel chA = FileChannel.open(a, StandardOpenOption.READ);
+             FileChannel chB = FileChannel.open(b, StandardOpenOption.READ)) {
+            checkSize(a, chA, nbOfClusters);
+            checkSize(b, chB, nbOfClusters);
+            int runStart = -1;
+            int runEnd = -1;
+            for (Run r : runs) {
+                checkRun(r, nbOfClusters);
+                for (int c = r.firstCluster(); c < r.endExclusive(); c += COMPARE_BATCH_CLUSTERS) {
+                    int count = Math.min(COMPARE_BATCH_CLUSTERS, r.endExclusive() - c);
+                    int bytes = count * CLUSTER_BYTES;
+                    readFully(chA, bufA, (long) c * CLUSTER_BYTES, bytes);
+                    readFully(chB, bufB, (long) c * CLUSTER_BYTES, bytes);
+                    for (int i = 0; i < count; i++) {
+                        ByteBuffer ca = bufA.slice(i * CLUSTER_BYTES, CLUSTER_BYTES);
+                        ByteBuffer cb = bufB.slice(i * CLUSTER_BYTES, CLUSTER_BYTES);
+                        if (ca.mismatch(cb) < 0) continue;
+                        int cluster = c + i;
+                        if (cluster == runEnd) {
+                            runEnd++;
+                        } else {
+                            if (runStart >= 0) changed.add(new Run(runStart, runEnd - runStart));
+                            runStart = cluster;
+                            runEnd = cluster + 1;
+                        }
+                    }
+                }
+            }
+            if (runStart >= 0) changed.add(new Run(runStart, runEnd - runStart));
+        }
+        return changed;
+    }
+
+    private static long copyRuns(Path src, FileChannel out, int nbOfClusters, List<Run> runs) throws IOException {
+        long copied = 0;
+        try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ)) {
+            checkSize(src, in, nbOfClusters);
+            for (Run r : runs) {
+                checkRun(r, nbOfClusters);
+                long pos = (long) r.firstCluster() * CLUSTER_BYTES;
+                long len = (long) r.clusterCount() * CLUSTER_BYTES;
+                out.position(pos);
+                for (long done = 0; done < len; ) {
+                    long n = in.transferTo(pos + done, len - done, out);
+                    if (n <= 0) throw new IOException("Short copy from " + src + " at byte " + (pos + done));
+                    done += n;
+                }
+                copied += len;
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Batches of COMPARE_BATCH_CLUSTERS read into a direct buffer; each stretch of non-zero clusters is
+     * written in one call, zero clusters are skipped (the destination is a fresh sparse file).
+     */
+    private static long copyNonZeroClusters(Path src, FileChannel out, int nbOfClusters, List<Run> runs) throws IOException {
+        long written = 0;
+        ByteBuffer buf = ByteBuffer.allocateDirect(COMPARE_BATCH_CLUSTERS * CLUSTER_BYTES);
+        ByteBuffer zero = ByteBuffer.allocateDirect(CLUSTER_BYTES);
+        try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ)) {
+            checkSize(src, in, nbOfClusters);
+            for (Run r : runs) {
+                checkRun(r, nbOfClusters);
+                for (int c = r.firstCluster(); c < r.endExclusive(); c += COMPARE_BATCH_CLUSTERS) {
+                    int count = Math.min(COMPARE_BATCH_CLUSTERS, r.endExclusive() - c);
+                    readFully(in, buf, (long) c * CLUSTER_BYTES, count * CLUSTER_BYTES);
+                    int from = -1; // first cluster of the pending stretch in buf
+                    for (int i = 0; i <= count; i++) {
+                        boolean data = i < count && buf.slice(i * CLUSTER_BYTES, CLUSTER_BYTES).mismatch(zero) >= 0;
+                        if (data && from < 0) {
+                            from = i;
+                        } else if (!data && from >= 0) {
+                            written += writeFully(out, buf.slice(from * CLUSTER_BYTES, (i - from) * CLUSTER_BYTES),
+                                    (long) (c + from) * CLUSTER_BYTES);
+                            from = -1;
+                        }
+                    }
+                }
+            }
+        }
+        return written;
+    }
+
+    private static int writeFully(FileChannel out, ByteBuffer src, long pos) throws IOException {
+        int bytes = src.remaining();
+        while (src.hasRemaining()) {
+            out.write(src, pos + src.position());
+        }
+        return bytes;
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long pos, int bytes) throws IOException {
+        buf.clear().limit(bytes);
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos + buf.position());
+            if (n < 0) throw new IOException("Unexpected end of image at byte " + (pos + buf.position()));
+        }
+    }
+
+    private static void checkSize(Path file, FileChannel ch, int nbOfClusters) throws IOException {
+        long expected = MiniDiscFormat.expectedImageBytes(nbOfClusters);
+        if (ch.size() != expected) {
+            throw new IOException("Image size mismatch: " + file + " is " + ch.size() + " bytes, expected " + expected);
+        }
+    }
+
+    private static void checkRun(Run r, int nbOfClusters) {
+        if (r.endExclusive() > nbOfClusters) {
+            throw new IllegalArgumentException("Run past the image: " + r + ", " + nbOfClusters + " clusters");
+        }
+    }
+}
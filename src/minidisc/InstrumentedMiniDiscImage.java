@@ -0,0 +1,118 @@
+package minidisc;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import static minidisc.MiniDiscFormat.SECTORS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+
+/**
+ * Counts and times the I/O of another image:
+ * - per image: sectorsRead() / sectorsWritten()
+ * - in the registry: SECTORS_* / BYTES_* counters, IMAGE_READ_NANOS / IMAGE_WRITE_NANOS per call
+ * - JFR: one MiniDiscEvents.ImageIo per call when enabled
+ * Bulk calls go to the delegate's readClusters / writeClusters as they are (one event, one latency sample).
+ * <p>
+ * Closes the delegate on close(). Thread-safe if the delegate is.
+ */
+public final class InstrumentedMiniDiscImage implements MiniDiscImage {
+
+    private final MiniDiscImage delegate;
+    private final MiniDiscMetrics metrics;
+    private final LongAdder sectorsRead = new LongAdder();
+    private final LongAdder sectorsWritten = new LongAdder();
+
+    public InstrumentedMiniDiscImage(MiniDiscImage delegate) {
+        this(delegate, MiniDiscMetrics.global());
+    }
+
+    public InstrumentedMiniDiscImage(MiniDiscImage delegate, MiniDiscMetrics metrics) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+    }
+
+    public long sectorsRead() {
+        return sectorsRead.sum();
+    }
+
+    public long sectorsWritten() {
+        return sectorsWritten.sum();
+    }
+
+    @Override
+    public int nbOfClusters() {
+        return delegate.nbOfClusters();
+    }
+
+    @Override
+    public void readSector(int clusterIndex, int sectorIndex, byte[] out2352) throws IOException {
+        MiniDiscEvents.ImageIo event = new MiniDiscEvents.ImageIo();
+        event.begin();
+        long t0 = System.nanoTime();
+        delegate.readSector(clusterIndex, sectorIndex, out2352);
+        done(event, false, clusterIndex, 1, System.nanoTime() - t0);
+    }
+
+    @Override
+    public void writeSector(int clusterIndex, int sectorIndex, byte[] in2352) throws IOException {
+        MiniDiscEvents.ImageIo event = new MiniDiscEvents.ImageIo();
+        event.begin();
+        long t0 = System.nanoTime();
+        delegate.writeSector(clusterIndex, sectorIndex, in2352);
+        done(event, true, clusterIndex, 1, System.nanoTime() - t0);
+    }
+
+    @Override
+    public void readClusters(int firstClusterIndex, int clusterCount, byte[] out) throws IOException {
+        MiniDiscEvents.ImageIo event = new MiniDiscEvents.ImageIo();
+        event.begin();
+        long t0 = System.nanoTime();
+        delegate.readClusters(firstClusterIndex, clusterCount, out);
+        done(event, false, firstClusterIndex, clusterCount * SECTORS_PER_CLUSTER, System.nanoTime() - t0);
+    }
+
+    @Override
+    public void writeClusters(int firstClusterIndex, int clusterCount, byte[] in) throws IOException {
+        MiniDiscEvents.ImageIo event = new MiniDiscEvents.ImageIo();
+        event.begin();
+        long t0 = System.nanoTime();
+        delegate.writeClusters(firstClusterIndex, clusterCount, in);
+        done(event, true, firstClusterIndex, clusterCount * SECTORS_PER_CLUSTER, System.nanoTime() - t0);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    /**
+     * Only successful calls are counted (an exception skips this).
+     */
+    private void done(MiniDiscEvents.ImageIo event, boolean write, int firstCluster, int sectors, long nanos) {
+        long bytes = (long) sectors * SECTOR_BYTES;
+        if (write) {
+            sectorsWritten.add(sectors);
+            metrics.add(MiniDiscMetrics.Counter.SECTORS_WRITTEN, sectors);
+            metrics.add(MiniDiscMetrics.Counter.BYTES_WRITTEN, bytes);
+            metrics.record(MiniDiscMetrics.Histogram.IMAGE_WRITE_NANOS, nanos);
+        } else {
+            sectorsRead.add(sectors);
+            metrics.add(MiniDiscMetrics.Counter.SECTORS_READ, sectors);
+            metrics.add(MiniDiscMetrics.Counter.BYTES_READ, bytes);
+            metrics.record(MiniDiscMetrics.Histogram.IMAGE_READ_NANOS, nanos);
+        }
+        if (event.shouldCommit()) {
+            event.write = write;
+            event.firstCluster = firstCluster;
+            event.sectors = sectors;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+}
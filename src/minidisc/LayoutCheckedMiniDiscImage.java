@@ -46,6 +46,31 @@ public final class LayoutCheckedMiniDiscImage implements MiniDiscImage {
         delegate.writeSector(clusterIndex, sectorIndex, in2352);
     }
 
+    @Override
+    public void readCluster(int clusterIndex, byte[] out84672) throws IOException {
+        delegate.readCluster(clusterIndex, out84672);
+    }
+
+    @Override
+    public void writeCluster(int clusterIndex, byte[] in84672) throws IOException {
+        delegate.writeCluster(clusterIndex, in84672);
+    }
+
+    @Override
+    public void readClusters(int firstClusterIndex, int clusterCount, byte[] out) throws IOException {
+        delegate.readClusters(firstClusterIndex, clusterCount, out);
+    }
+
+    @Override
+    public void writeClusters(int firstClusterIndex, int clusterCount, byte[] in) throws IOException {
+        delegate.writeClusters(firstClusterIndex, clusterCount, in);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
     /**
      * Safe API: validates cluster zone + builds a structurally valid audio sector.
      */
@@ -61,10 +86,17 @@ public final class LayoutCheckedMiniDiscImage implements MiniDiscImage {
      * Safe API: validates cluster zone + builds a structurally valid TOC/UTOC-like sector.
      */
     public void writeTocSector(MiniDiscAddress addr, byte[] tocData2336) throws IOException {
+        writeTocSector(addr, tocData2336, false);
+    }
+
+    /**
+     * @param edc true: the sector carries its EDC (MiniDiscEdc.writeToc)
+     */
+    public void writeTocSector(MiniDiscAddress addr, byte[] tocData2336, boolean edc) throws IOException {
         Objects.requireNonNull(addr, "addr");
         int clusterIndex = addr.clusterIndex();
         validateInLeadInOrUtoc(clusterIndex);
-        MiniDiscSector sector = MiniDiscSector.fromAddressAndTocData(addr, tocData2336);
+        MiniDiscSector sector = MiniDiscSector.fromAddressAndTocData(addr, tocData2336, edc);
         delegate.writeSector(clusterIndex, addr.sectorIndex(), sector.rawUnsafe());
     }
 
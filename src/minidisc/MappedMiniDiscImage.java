@@ -0,0 +1,112 @@
+package minidisc;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * Maps the whole image in memory: readSector/writeSector are plain memory copies,
+ * no seek + read/write syscall pair per 2352-byte sector.
+ * <p>
+ * An MD80 image is ~213 MB, well below the 2 GB limit of a single {@link MappedByteBuffer}.
+ * Only absolute get/put are used, so concurrent readers do not share any position state.
+ * <p>
+ * Writes land in the page cache: {@link #flush()} forces them to the storage device,
+ * {@link #close()} flushes then closes the channel (the mapping itself is released by the GC).
+ */
+public final class MappedMiniDiscImage implements MiniDiscImage {
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int nbOfClusters;
+
+    public MappedMiniDiscImage(FileChannel channel, int nbOfClusters, FileChannel.MapMode mode) throws IOException {
+        this.channel = Objects.requireNonNull(channel, "channel");
+        Objects.requireNonNull(mode, "mode");
+        if (nbOfClusters <= 0) throw new IllegalArgumentException("nbOfClusters must be > 0: " + nbOfClusters);
+        this.nbOfClusters = nbOfClusters;
+
+        long expectedSize = FileMiniDiscImage.expectedSizeBytes(nbOfClusters);
+        long actualSize = channel.size();
+        if (actualSize != expectedSize) {
+            throw new IllegalArgumentException("Invalid image size. expected=" + expectedSize + " actual=" + actualSize);
+        }
+        if (expectedSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Image too large for a single mapping: " + expectedSize);
+        }
+
+        this.buffer = channel.map(mode, 0L, expectedSize);
+    }
+
+    @Override
+    public int nbOfClusters() {
+        return nbOfClusters;
+    }
+
+    @Override
+    public void readSector(int clusterIndex, int sectorIndex, byte[] out2352) throws IOException {
+        validateAddress(clusterIndex, sectorIndex);
+        Objects.requireNonNull(out2352, "out2352");
+        if (out2352.length != MiniDiscFormat.SECTOR_BYTES) {
+            throw new IllegalArgumentException("out2352 must be exactly " + MiniDiscFormat.SECTOR_BYTES + " bytes");
+        }
+
+        buffer.get(byteOffset(clusterIndex, sectorIndex), out2352);
+    }
+
+    @Override
+    public void writeSector(int clusterIndex, int sectorIndex, byte[] in2352) throws IOException {
+        validateAddress(clusterIndex, sectorIndex);
+        Objects.requireNonNull(in2352, "in2352");
+        if (in2352.length != MiniDiscFormat.SECTOR_BYTES) {
+            throw new IllegalArgumentException("in2352 must be exactly " + MiniDiscFormat.SECTOR_BYTES + " bytes");
+        }
+
+        buffer.put(byteOffset(clusterIndex, sectorIndex), in2352);
+    }
+
+    @Override
+    public void readClusters(int firstClusterIndex, int clusterCount, byte[] out) throws IOException {
+        MiniDiscImage.checkClusterRange(this, firstClusterIndex, clusterCount, out, "out");
+        buffer.get(byteOffset(firstClusterIndex, 0), out, 0, clusterCount * MiniDiscFormat.CLUSTER_BYTES);
+    }
+
+    @Override
+    public void writeClusters(int firstClusterIndex, int clusterCount, byte[] in) throws IOException {
+        MiniDiscImage.checkClusterRange(this, firstClusterIndex, clusterCount, in, "in");
+        buffer.put(byteOffset(firstClusterIndex, 0), in, 0, clusterCount * MiniDiscFormat.CLUSTER_BYTES);
+    }
+
+    /**
+     * msync of the whole mapping. No-op for a read-only mapping.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!buffer.isReadOnly()) {
+            buffer.force();
+        }
+    }
+
+    private void validateAddress(int clusterIndex, int sectorIndex) {
+        if (clusterIndex < 0 || clusterIndex >= nbOfClusters) {
+            throw new IllegalArgumentException("clusterIndex out of range: " + clusterIndex);
+        }
+        if (sectorIndex < 0 || sectorIndex >= MiniDiscFormat.SECTORS_PER_CLUSTER) {
+            throw new IllegalArgumentException("sectorIndex out of range: " + sectorIndex);
+        }
+    }
+
+    private static int byteOffset(int clusterIndex, int sectorIndex) {
+        int sectorNumber = clusterIndex * MiniDiscFormat.SECTORS_PER_CLUSTER + sectorIndex;
+        return sectorNumber * MiniDiscFormat.SECTOR_BYTES;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
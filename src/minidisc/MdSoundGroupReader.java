@@ -0,0 +1,137 @@
+package minidisc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+import static minidisc.MiniDiscFormat.SECTOR_DATA_BYTES;
+import static minidisc.MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SOUND_GROUP_BYTES;
+
+/**
+ * Inverse of MdSoundGroupWriter: audio payloads of successive data sectors -> sound groups.
+ * <p>
+ * The range starts at sound group firstSoundGroup (0..175) of firstCluster and holds soundGroupCount
+ * sound groups. Up to batchClusters clusters of the range are read at a time (readClusters) into a buffer;
+ * payload bytes are copied out of it one sector piece at a time (a sound group straddling 2 sectors
+ * comes out of 2 pieces).
+ * <p>
+ * Read-only, single thread.
+ */
+public final class MdSoundGroupReader implements SoundGroupStream {
+
+    private static final int PAYLOAD_BYTES_PER_CLUSTER = SOUND_GROUPS_PER_CLUSTER * SOUND_GROUP_BYTES; // 74624
+
+    private final MiniDiscImage image;
+    private final int endCluster;             // exclusive
+    private final int batchClusters;
+    private final ByteBuffer batch;
+
+    private int clusterIndex;                 // cluster of the next sound group
+    private int loadedFirst = -1;             // clusters currently in 'batch'
+    private int loadedCount;
+    private int soundGroupInCluster;          // next sound group, 0..176 (176: next cluster)
+    private long remaining;
+
+    public MdSoundGroupReader(MiniDiscImage image, int firstCluster, int firstSoundGroup, long soundGroupCount) {
+        this(image, firstCluster, firstSoundGroup, soundGroupCount, 1);
+    }
+
+    /**
+     * @param batchClusters clusters read per readClusters call (memory: batchClusters * 84672 bytes)
+     */
+    public MdSoundGroupReader(MiniDiscImage image, int firstCluster, int firstSoundGroup, long soundGroupCount,
+                              int batchClusters) {
+        this.image = Objects.requireNonNull(image, "image");
+        if (firstSoundGroup < 0 || firstSoundGroup >= SOUND_GROUPS_PER_CLUSTER) {
+            throw new IllegalArgumentException("firstSoundGroup out of range: " + firstSoundGroup);
+        }
+        if (soundGroupCount < 0 || firstCluster < 0) {
+            throw new IllegalArgumentException("Negative firstCluster / soundGroupCount");
+        }
+        long lastCluster = firstCluster + (firstSoundGroup + soundGroupCount - 1) / SOUND_GROUPS_PER_CLUSTER;
+        if (soundGroupCount > 0 && lastCluster >= image.nbOfClusters()) {
+            throw new IllegalArgumentException("Sound group range ends past the image: cluster " + lastCluster);
+        }
+        if (batchClusters < 1) throw new IllegalArgumentException("batchClusters must be >= 1: " + batchClusters);
+        this.endCluster = (int) Math.max(firstCluster, lastCluster + 1);
+        this.batchClusters = batchClusters;
+        this.batch = ByteBuffer.allocate(batchClusters * CLUSTER_BYTES);
+        this.clusterIndex = firstCluster;
+        this.soundGroupInCluster = firstSoundGroup;
+        this.remaining = soundGroupCount;
+    }
+
+    /**
+     * Whole clusters, from the first sound group of firstCluster.
+     */
+    public MdSoundGroupReader(MiniDiscImage image, int firstCluster, int clusterCount) {
+        this(image, firstCluster, 0, (long) clusterCount * SOUND_GROUPS_PER_CLUSTER);
+    }
+
+    /**
+     * @return 424, or -1 EOF
+     */
+    @Override
+    public int readSoundGroup(byte[] sg424) throws IOException {
+        Objects.requireNonNull(sg424, "sg424");
+        if (sg424.length != SOUND_GROUP_BYTES) {
+            throw new IllegalArgumentException("Sound group must be exactly " + SOUND_GROUP_BYTES + " bytes");
+        }
+        return readSoundGroups(ByteBuffer.wrap(sg424)) < 0 ? -1 : SOUND_GROUP_BYTES;
+    }
+
+    @Override
+    public int readSoundGroups(ByteBuffer dst) throws IOException {
+        Objects.requireNonNull(dst, "dst");
+        int wanted = dst.remaining() / SOUND_GROUP_BYTES;
+        if (wanted == 0) return 0;
+        if (remaining == 0) return -1;
+
+        int count = (int) Math.min(wanted, remaining);
+        int payloadPos = soundGroupInCluster * SOUND_GROUP_BYTES;
+        int left = count * SOUND_GROUP_BYTES;
+        while (left > 0) {
+            if (payloadPos == PAYLOAD_BYTES_PER_CLUSTER) {
+                clusterIndex++;
+                payloadPos = 0;
+            }
+            if (clusterIndex < loadedFirst || clusterIndex >= loadedFirst + loadedCount) {
+                loadedCount = Math.min(batchClusters, endCluster - clusterIndex);
+                image.readClusters(clusterIndex, loadedCount, batch.array());
+                loadedFirst = clusterIndex;
+            }
+            int inSector = payloadPos % SECTOR_DATA_BYTES;
+            int n = Math.min(left, SECTOR_DATA_BYTES - inSector);
+            int from = (clusterIndex - loadedFirst) * CLUSTER_BYTES
+                    + (payloadPos / SECTOR_DATA_BYTES) * SECTOR_BYTES + MiniDiscSector.AUDIO_BLOCK_OFFSET + inSector;
+            int p = dst.position();
+            dst.put(p, batch, from, n);
+            dst.position(p + n);
+            payloadPos += n;
+            left -= n;
+        }
+        soundGroupInCluster = payloadPos / SOUND_GROUP_BYTES;
+        remaining -= count;
+        return count;
+    }
+
+    /**
+     * Read-only stream.
+     */
+    @Override
+    public void writeSoundGroup(byte[] sg424) {
+        throw new UnsupportedOperationException("MdSoundGroupReader is read-only");
+    }
+
+    @Override
+    public void writeSoundGroups(ByteBuffer src) {
+        throw new UnsupportedOperationException("MdSoundGroupReader is read-only");
+    }
+
+    public long remainingSoundGroups() {
+        return remaining;
+    }
+}
@@ -0,0 +1,170 @@
+package minidisc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+import static minidisc.MiniDiscFormat.DATA_SECTORS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+import static minidisc.MiniDiscFormat.SECTOR_DATA_BYTES;
+import static minidisc.MiniDiscFormat.SOUND_GROUP_BYTES;
+
+/**
+ * Sound groups -> audio payloads of successive data sectors, from the first sector of firstCluster.
+ * <p>
+ * Sound groups are copied straight into a buffer of batchClusters clusters (a sound group straddling
+ * 2 sectors is copied in 2 pieces); headers and link/subdata sectors are built in place once a cluster
+ * is full, and the batch is written with a single writeClusters once all its clusters are full.
+ * close() pads the last cluster with zeros (silent sound units) and writes what is left of the batch.
+ * setEdc(true): each data sector gets its EDC (MiniDiscEdc) once its cluster is full.
+ * <p>
+ * Write-only, single thread.
+ */
+public final class MdSoundGroupWriter implements SoundGroupStream, AutoCloseable {
+
+    private static final int PAYLOAD_BYTES_PER_CLUSTER = DATA_SECTORS_PER_CLUSTER * SECTOR_DATA_BYTES; // 74624
+
+    private final MiniDiscImage image;
+    private final int endCluster;                                // exclusive
+    private final int batchClusters;
+    private final byte[] batchBytes;
+    private final ByteBuffer batch;
+
+    private int batchFirst;                                      // cluster index of batch[0]
+    private int batchFill;                                       // full clusters in the batch
+    private int payloadPos;                                      // 0..74624 in the current cluster
+    private long soundGroupsWritten;
+    private boolean edc;
+    private boolean closed;
+
+    /**
+     * @param clusterCount clusters available to the stream (writing past them fails)
+     */
+    public MdSoundGroupWriter(MiniDiscImage image, int firstCluster, int clusterCount) {
+        this(image, firstCluster, clusterCount, 1);
+    }
+
+    /**
+     * @param batchClusters clusters written per writeClusters call (memory: batchClusters * 84672 bytes)
+     */
+    public MdSoundGroupWriter(MiniDiscImage image, int firstCluster, int clusterCount, int batchClusters) {
+        this.image = Objects.requireNonNull(image, "image");
+        if (clusterCount < 0 || firstCluster < 0 || (long) firstCluster + clusterCount > image.nbOfClusters()) {
+            throw new IllegalArgumentException("Cluster range out of image: " + firstCluster + " + " + clusterCount);
+        }
+        if (batchClusters < 1) throw new IllegalArgumentException("batchClusters must be >= 1: " + batchClusters);
+        this.batchFirst = firstCluster;
+        this.endCluster = firstCluster + clusterCount;
+        this.batchClusters = batchClusters;
+        this.batchBytes = new byte[batchClusters * CLUSTER_BYTES];
+        this.batch = ByteBuffer.wrap(batchBytes);
+    }
+
+    /**
+     * Applies to the clusters not finished yet.
+     */
+    public void setEdc(boolean edc) {
+        this.edc = edc;
+    }
+
+    @Override
+    public void writeSoundGroup(byte[] sg424) throws IOException {
+        Objects.requireNonNull(sg424, "sg424");
+        if (sg424.length != SOUND_GROUP_BYTES) {
+            throw new IllegalArgumentException("Sound group must be exactly " + SOUND_GROUP_BYTES + " bytes");
+        }
+        writeSoundGroups(ByteBuffer.wrap(sg424));
+    }
+
+    @Override
+    public void writeSoundGroups(ByteBuffer src) throws IOException {
+        Objects.requireNonNull(src, "src");
+        SoundGroupStream.checkWholeSoundGroups(src);
+        ensureOpen();
+        int count = src.remaining() / SOUND_GROUP_BYTES;
+        long room = (long) (endCluster - batchFirst - batchFill) * PAYLOAD_BYTES_PER_CLUSTER - payloadPos;
+        if (src.remaining() > room) {
+            throw new IOException("No room left for " + count + " sound groups (end cluster: " + endCluster + ")");
+        }
+
+        while (src.hasRemaining()) {
+            int sector = payloadPos / SECTOR_DATA_BYTES;
+            int inSector = payloadPos % SECTOR_DATA_BYTES;
+            int n = Math.min(src.remaining(), SECTOR_DATA_BYTES - inSector);
+            int p = src.position();
+            batch.put(batchFill * CLUSTER_BYTES + sector * SECTOR_BYTES + MiniDiscSector.AUDIO_BLOCK_OFFSET + inSector,
+                    src, p, n);
+            src.position(p + n);
+            payloadPos += n;
+            if (payloadPos == PAYLOAD_BYTES_PER_CLUSTER) {
+                finishCluster();
+            }
+        }
+        soundGroupsWritten += count;
+    }
+
+    /**
+     * Write-only stream.
+     */
+    @Override
+    public int readSoundGroup(byte[] sg424) {
+        throw new UnsupportedOperationException("MdSoundGroupWriter is write-only");
+    }
+
+    public long soundGroupsWritten() {
+        return soundGroupsWritten;
+    }
+
+    /**
+     * Cluster receiving the next sound group (the one after the last written cluster once closed).
+     */
+    public int nextCluster() {
+        return batchFirst + batchFill;
+    }
+
+    private void finishCluster() throws IOException {
+        int clusterIndex = batchFirst + batchFill;
+        int base = batchFill * CLUSTER_BYTES;
+        for (int s = 0; s < DATA_SECTORS_PER_CLUSTER; s++) {
+            MiniDiscSector.buildAudioHeaderInto(clusterIndex, s, batchBytes, base + s * SECTOR_BYTES);
+            if (edc) MiniDiscSector.writeAudioEdcInto(batchBytes, base + s * SECTOR_BYTES);
+        }
+        MiniDiscSector.buildClusterTailInto(clusterIndex, batchBytes, base);
+        batchFill++;
+        payloadPos = 0;
+        if (batchFill == batchClusters) {
+            writeBatch();
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        if (batchFill == 0) return;
+        image.writeClusters(batchFirst, batchFill, batchBytes);
+        batchFirst += batchFill;
+        batchFill = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Sound group writer is closed");
+    }
+
+    /**
+     * Pads the partial last cluster, if any, and writes the rest of the batch. Does not close the image.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (payloadPos > 0) {
+            int base = batchFill * CLUSTER_BYTES;
+            int sector = payloadPos / SECTOR_DATA_BYTES;
+            int inSector = payloadPos % SECTOR_DATA_BYTES;
+            int start = base + sector * SECTOR_BYTES + MiniDiscSector.AUDIO_BLOCK_OFFSET + inSector;
+            Arrays.fill(batchBytes, start, base + DATA_SECTORS_PER_CLUSTER * SECTOR_BYTES, (byte) 0);
+            finishCluster();
+        }
+        writeBatch();
+    }
+}
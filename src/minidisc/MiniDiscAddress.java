@@ -1,5 +1,7 @@
 package minidisc;
 
+import java.nio.ByteBuffer;
+
 /**
  * Logical address in the image: cluster + sectorIndex (0..35).
  * This is NOT the “sector address byte” written in headers (FC/FD/... for LINK/SUBDATA).
@@ -32,8 +34,24 @@ public record MiniDiscAddress(int clusterIndex, int sectorIndex) {
      * Writes 2 bytes cluster (big-endian) + 1 byte sector-address into raw sector header.
      */
     public void writeAddressToHeader(byte[] raw2352, int offset) {
-        raw2352[offset] = (byte) ((clusterIndex >>> 8) & 0xFF);
-        raw2352[offset + 1] = (byte) (clusterIndex & 0xFF);
-        raw2352[offset + 2] = sectorAddressByte();
+        writeAddressToHeader(raw2352, offset, clusterIndex, sectorIndex);
+    }
+
+    /**
+     * Allocation-free variant for hot paths: no MiniDiscAddress instance, no range check.
+     */
+    static void writeAddressToHeader(byte[] raw, int offset, int clusterIndex, int sectorIndex) {
+        raw[offset] = (byte) ((clusterIndex >>> 8) & 0xFF);
+        raw[offset + 1] = (byte) (clusterIndex & 0xFF);
+        raw[offset + 2] = SectorRole.fromSectorIndexUnsafe(sectorIndex).toSectorAddress(sectorIndex);
+    }
+
+    /**
+     * Same as {@link #writeAddressToHeader(byte[], int, int, int)}, absolute puts into a ByteBuffer.
+     */
+    static void writeAddressToHeader(ByteBuffer raw, int index, int clusterIndex, int sectorIndex) {
+        raw.put(index, (byte) ((clusterIndex >>> 8) & 0xFF));
+        raw.put(index + 1, (byte) (clusterIndex & 0xFF));
+        raw.put(index + 2, SectorRole.fromSectorIndexUnsafe(sectorIndex).toSectorAddress(sectorIndex));
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package minidisc;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+import static minidisc.MiniDiscFormat.DATA_SECTORS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+
+/**
+ * Optional EDC of audio (DATA) sectors: CRC-32C of the header + mode (bytes 12..16) and of the
+ * Audio Block (bytes 20..2352), stored big-endian in the 4-byte separator (bytes 16..20).
+ * <p>
+ * - separator 0: no EDC (sectors written without it, or rebuilt by buildAudioHeaderInto)
+ * - otherwise: must equal the CRC, any change of the address or of the Audio Block is detected
+ * A sector whose CRC happens to be 0 reads as "no EDC" (1 chance in 2^32), never as an error.
+ * <p>
+ * TOC / UTOC sectors (the *Toc methods): the slot table starts at 0x128, 8 bytes per slot, so slot 255
+ * ends at 0x928 and 0x928..0x930 is spare. The CRC-32C of bytes 12..0x92C (header + mode + data) goes
+ * big-endian in the last 4 bytes (TOC_EDC_OFFSET), same "0 = none" rule. BinaryUtocStore writes it.
+ * The lead-in TOC of cluster 0 carries none: md create only writes its 2 lead-out ADS bytes, there is
+ * no sector header to protect.
+ * <p>
+ * java.util.zip.CRC32C is a HotSpot intrinsic (SSE4.2 / ARMv8 CRC32 instructions, several GB/s per core);
+ * the JDK falls back to a table-driven implementation elsewhere.
+ */
+public final class MiniDiscEdc {
+
+    public static final int EDC_OFFSET = MiniDiscSector.AUDIO_SEP_OFFSET;
+
+    public static final int TOC_EDC_OFFSET = SECTOR_BYTES - 4; // 0x92C
+
+    private static final int HEADER_BYTES = MiniDiscSector.AUDIO_SEP_OFFSET - MiniDiscSector.HEADER_OFFSET; // 4
+    private static final int TOC_COVERED_BYTES = TOC_EDC_OFFSET - MiniDiscSector.HEADER_OFFSET;
+
+    private MiniDiscEdc() {
+    }
+
+    public enum Status {
+        ABSENT,
+        OK,
+        BAD
+    }
+
+    /**
+     * Reports an audio sector whose stored EDC does not match.
+     */
+    @FunctionalInterface
+    public interface MismatchSink {
+        void mismatch(int clusterInBuffer, int sector, int stored, int computed);
+    }
+
+    /**
+     * CRC-32C of the audio sector at raw[offset .. offset + 2352), separator excluded.
+     */
+    public static int compute(byte[] raw, int offset) {
+        return compute(new CRC32C(), raw, offset);
+    }
+
+    /**
+     * Stores the EDC of an audio sector whose header and Audio Block are in place.
+     */
+    public static void write(byte[] raw, int offset) {
+        putInt(raw, offset + EDC_OFFSET, compute(raw, offset));
+    }
+
+    public static int stored(byte[] raw, int offset) {
+        return getInt(raw, offset + EDC_OFFSET);
+    }
+
+    public static Status check(byte[] raw, int offset) {
+        int stored = stored(raw, offset);
+        if (stored == 0) return Status.ABSENT;
+        return stored == compute(raw, offset) ? Status.OK : Status.BAD;
+    }
+
+    /**
+     * CRC-32C of the TOC / UTOC sector at raw[offset .. offset + 2352): header, mode and data up to the EDC.
+     */
+    public static int computeToc(byte[] raw, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(raw, offset + MiniDiscSector.HEADER_OFFSET, TOC_COVERED_BYTES);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Stores the EDC of a TOC / UTOC sector whose header and data are in place.
+     */
+    public static void writeToc(byte[] raw, int offset) {
+        putInt(raw, offset + TOC_EDC_OFFSET, computeToc(raw, offset));
+    }
+
+    public static int storedToc(byte[] raw, int offset) {
+        return getInt(raw, offset + TOC_EDC_OFFSET);
+    }
+
+    public static Status checkToc(byte[] raw, int offset) {
+        int stored = storedToc(raw, offset);
+        if (stored == 0) return Status.ABSENT;
+        return stored == computeToc(raw, offset) ? Status.OK : Status.BAD;
+    }
+
+    /**
+     * Same as compute(byte[], int), for the sector at raw[index .. index + 2352) (absolute, any byte order).
+     */
+    public static int compute(ByteBuffer raw, int index) {
+        CRC32C crc = new CRC32C();
+        crc.update(raw.slice(index + MiniDiscSector.HEADER_OFFSET, HEADER_BYTES));
+        crc.update(raw.slice(index + MiniDiscSector.AUDIO_BLOCK_OFFSET, MiniDiscSector.AUDIO_BLOCK_BYTES));
+        return (int) crc.getValue();
+    }
+
+    public static int stored(ByteBuffer raw, int index) {
+        int o = index + EDC_OFFSET;
+        return ((raw.get(o) & 0xFF) << 24) | ((raw.get(o + 1) & 0xFF) << 16) | ((raw.get(o + 2) & 0xFF) << 8) | (raw.get(o + 3) & 0xFF);
+    }
+
+    public static Status check(ByteBuffer raw, int index) {
+        int stored = stored(raw, index);
+        if (stored == 0) return Status.ABSENT;
+        return stored == compute(raw, index) ? Status.OK : Status.BAD;
+    }
+
+    /**
+     * EDC of the 32 audio sectors of each cluster in buf (one CRC32C reused for the whole buffer).
+     * Sectors without EDC (separator 0, unrecorded sectors included) are skipped.
+     *
+     * @return number of sectors whose EDC was checked (matching or not)
+     */
+    public static long checkClusters(byte[] buf, int offset, int clusterCount, MismatchSink sink) {
+        CRC32C crc = new CRC32C();
+        long checked = 0;
+        for (int c = 0; c < clusterCount; c++) {
+            int base = offset + c * CLUSTER_BYTES;
+            for (int s = 0; s < DATA_SECTORS_PER_CLUSTER; s++) {
+                int o = base + s * SECTOR_BYTES;
+                int stored = stored(buf, o);
+                if (stored == 0) continue;
+                checked++;
+                int computed = compute(crc, buf, o);
+                if (computed != stored) sink.mismatch(c, s, stored, computed);
+            }
+        }
+        return checked;
+    }
+
+    private static int compute(CRC32C crc, byte[] raw, int offset) {
+        crc.reset();
+        crc.update(raw, offset + MiniDiscSector.HEADER_OFFSET, HEADER_BYTES);
+        crc.update(raw, offset + MiniDiscSector.AUDIO_BLOCK_OFFSET, MiniDiscSector.AUDIO_BLOCK_BYTES);
+        return (int) crc.getValue();
+    }
+
+    private static int getInt(byte[] b, int o) {
+        return ((b[o] & 0xFF) << 24) | ((b[o + 1] & 0xFF) << 16) | ((b[o + 2] & 0xFF) << 8) | (b[o + 3] & 0xFF);
+    }
+
+    private static void putInt(byte[] b, int o, int v) {
+        b[o] = (byte) (v >>> 24);
+        b[o + 1] = (byte) (v >>> 16);
+        b[o + 2] = (byte) (v >>> 8);
+        b[o + 3] = (byte) v;
+    }
+}
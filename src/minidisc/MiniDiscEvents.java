@@ -0,0 +1,87 @@
+package minidisc;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR events emitted next to the MiniDiscMetrics updates (disabled unless a recording enables them):
+ * java -XX:StartFlightRecording:filename=md.jfr,settings=profile ...
+ * jfr print --categories MiniDisc md.jfr
+ * <p>
+ * Emitters check shouldCommit() before filling the fields.
+ */
+final class MiniDiscEvents {
+
+    private MiniDiscEvents() {
+    }
+
+    @Name("minidisc.ImageIo")
+    @Label("Image I/O")
+    @Category("MiniDisc")
+    @Description("Sectors read from / written to a MiniDiscImage")
+    @StackTrace(false)
+    static final class ImageIo extends Event {
+        @Label("Write")
+        boolean write;
+
+        @Label("First Cluster")
+        int firstCluster;
+
+        @Label("Sectors")
+        int sectors;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("minidisc.ClusterEncode")
+    @Label("Cluster Encode")
+    @Category("MiniDisc")
+    @Description("One cluster of PCM encoded into 36 sectors by MiniDiscRecorder")
+    @StackTrace(false)
+    static final class ClusterEncode extends Event {
+        @Label("Cluster")
+        int cluster;
+
+        @Label("Last Cluster")
+        boolean lastCluster;
+    }
+
+    @Name("minidisc.ClusterWrite")
+    @Label("Cluster Write")
+    @Category("MiniDisc")
+    @Description("MiniDiscRecorder waiting for, then writing, an encoded cluster")
+    @StackTrace(false)
+    static final class ClusterWrite extends Event {
+        @Label("Cluster")
+        int cluster;
+
+        @Label("Clusters In Flight")
+        int inFlight;
+    }
+
+    @Name("minidisc.ClusterAllocation")
+    @Label("Cluster Allocation")
+    @Category("MiniDisc")
+    @Description("Run of clusters allocated or freed by BitmapClusterAllocator")
+    @StackTrace(false)
+    static final class ClusterAllocation extends Event {
+        @Label("Free")
+        boolean free;
+
+        @Label("First Cluster")
+        int firstCluster;
+
+        @Label("Clusters")
+        int clusters;
+
+        @Label("Free Clusters After")
+        int freeClustersAfter;
+    }
+}
@@ -7,6 +7,12 @@ public final class MiniDiscFormat {
     public static final int DATA_SECTORS_PER_CLUSTER = 32;
     public static final int LINK_SECTORS_PER_CLUSTER = 3;
     public static final int SUBDATA_SECTORS_PER_CLUSTER = 1;
+    public static final int CLUSTER_BYTES = SECTORS_PER_CLUSTER * SECTOR_BYTES; // 84_672
+
+    // Audio payload: sound groups (L + R sound units of 212 bytes) back to back, 5.5 per sector
+    public static final int SOUND_GROUP_BYTES = 424;
+    public static final int SOUND_GROUPS_PER_CLUSTER = DATA_SECTORS_PER_CLUSTER * SECTOR_DATA_BYTES / SOUND_GROUP_BYTES; // 176
+    public static final int SAMPLE_RATE = 44100; // Hz, 16-bit stereo in and out of the codec
 
     // Layout (clusters)
     public static final int LEAD_IN_CLUSTERS = 3;
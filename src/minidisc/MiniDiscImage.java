@@ -2,6 +2,7 @@ package minidisc;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Objects;
 
 public interface MiniDiscImage extends Closeable {
     int nbOfClusters();
@@ -10,4 +11,81 @@ public interface MiniDiscImage extends Closeable {
 
     void writeSector(int clusterIndex, int sectorIndex, byte[] in2352) throws IOException;
 
-}
\ No newline at end of file
+    /**
+     * Reads the 36 sectors of a cluster back to back (84,672 bytes).
+     */
+    default void readCluster(int clusterIndex, byte[] out84672) throws IOException {
+        Objects.requireNonNull(out84672, "out84672");
+        if (out84672.length != MiniDiscFormat.CLUSTER_BYTES) {
+            throw new IllegalArgumentException("out84672 must be exactly " + MiniDiscFormat.CLUSTER_BYTES + " bytes");
+        }
+        readClusters(clusterIndex, 1, out84672);
+    }
+
+    /**
+     * Writes the 36 sectors of a cluster, given back to back (84,672 bytes).
+     */
+    default void writeCluster(int clusterIndex, byte[] in84672) throws IOException {
+        Objects.requireNonNull(in84672, "in84672");
+        if (in84672.length != MiniDiscFormat.CLUSTER_BYTES) {
+            throw new IllegalArgumentException("in84672 must be exactly " + MiniDiscFormat.CLUSTER_BYTES + " bytes");
+        }
+        writeClusters(clusterIndex, 1, in84672);
+    }
+
+    /**
+     * Reads clusterCount consecutive clusters into out[0 .. clusterCount*84672).
+     * Default implementation: one readSector per sector. Backends override with a single bulk read.
+     */
+    default void readClusters(int firstClusterIndex, int clusterCount, byte[] out) throws IOException {
+        checkClusterRange(this, firstClusterIndex, clusterCount, out, "out");
+        byte[] sector = new byte[MiniDiscFormat.SECTOR_BYTES];
+        int pos = 0;
+        for (int c = 0; c < clusterCount; c++) {
+            for (int s = 0; s < MiniDiscFormat.SECTORS_PER_CLUSTER; s++) {
+                readSector(firstClusterIndex + c, s, sector);
+                System.arraycopy(sector, 0, out, pos, MiniDiscFormat.SECTOR_BYTES);
+                pos += MiniDiscFormat.SECTOR_BYTES;
+            }
+        }
+    }
+
+    /**
+     * Writes clusterCount consecutive clusters from in[0 .. clusterCount*84672).
+     * Default implementation: one writeSector per sector. Backends override with a single bulk write.
+     */
+    default void writeClusters(int firstClusterIndex, int clusterCount, byte[] in) throws IOException {
+        checkClusterRange(this, firstClusterIndex, clusterCount, in, "in");
+        byte[] sector = new byte[MiniDiscFormat.SECTOR_BYTES];
+        int pos = 0;
+        for (int c = 0; c < clusterCount; c++) {
+            for (int s = 0; s < MiniDiscFormat.SECTORS_PER_CLUSTER; s++) {
+                System.arraycopy(in, pos, sector, 0, MiniDiscFormat.SECTOR_BYTES);
+                writeSector(firstClusterIndex + c, s, sector);
+                pos += MiniDiscFormat.SECTOR_BYTES;
+            }
+        }
+    }
+
+    /**
+     * Forces sectors written so far to the storage device (fsync / msync).
+     */
+    default void flush() throws IOException {
+    }
+
+    /**
+     * Validates a cluster range against the image and the buffer holding it.
+     */
+    static void checkClusterRange(MiniDiscImage image, int firstClusterIndex, int clusterCount, byte[] buffer, String name) {
+        Objects.requireNonNull(buffer, name);
+        if (clusterCount <= 0) {
+            throw new IllegalArgumentException("clusterCount must be > 0: " + clusterCount);
+        }
+        if (firstClusterIndex < 0 || firstClusterIndex > image.nbOfClusters() - clusterCount) {
+            throw new IllegalArgumentException("cluster range out of image: " + firstClusterIndex + " + " + clusterCount);
+        }
+        if ((long) clusterCount * MiniDiscFormat.CLUSTER_BYTES > buffer.length) {
+            throw new IllegalArgumentException(name + " too small for " + clusterCount + " clusters: " + buffer.length);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package minidisc;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters + histograms for the hot paths, cheap enough to stay on:
+ * - counters: LongAdder, one add per call
+ * - histograms: power-of-two buckets (bucket i holds values in [2^(i-1), 2^i)), count / sum / max
+ * <p>
+ * global() is fed by MiniDiscRecorder (encode latency, clusters in flight, producer waits),
+ * BitmapClusterAllocator (allocations / frees) and the InstrumentedMiniDiscImage instances built on it
+ * (sectors / bytes / latency of image I/O). Together they tell whether a job is bound by ingest,
+ * encoding or I/O. The same spots also emit the JFR events of MiniDiscEvents.
+ */
+public final class MiniDiscMetrics {
+
+    public enum Counter {
+        SECTORS_READ,
+        SECTORS_WRITTEN,
+        BYTES_READ,
+        BYTES_WRITTEN,
+        PCM_FRAMES_IN,
+        CLUSTERS_ENCODED,
+        CLUSTERS_ALLOCATED,
+        CLUSTERS_FREED,
+        ALLOCATION_FAILURES
+    }
+
+    public enum Histogram {
+        IMAGE_READ_NANOS,
+        IMAGE_WRITE_NANOS,
+        CLUSTER_ENCODE_NANOS,
+        CLUSTER_WRITE_NANOS,
+        PRODUCER_WAIT_NANOS,   // writePcmFrames blocked on encode / write (backpressure)
+        CLUSTERS_IN_FLIGHT     // sampled when a cluster is handed to the encode / write pipeline
+    }
+
+    private static final int BUCKETS = 64;
+    private static final MiniDiscMetrics GLOBAL = new MiniDiscMetrics();
+
+    private final EnumMap<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+    private final EnumMap<Histogram, Recorder> histograms = new EnumMap<>(Histogram.class);
+
+    public MiniDiscMetrics() {
+        for (Counter c : Counter.values()) counters.put(c, new LongAdder());
+        for (Histogram h : Histogram.values()) histograms.put(h, new Recorder());
+    }
+
+    /**
+     * Registry shared by the whole process.
+     */
+    public static MiniDiscMetrics global() {
+        return GLOBAL;
+    }
+
+    public void add(Counter counter, long delta) {
+        counters.get(counter).add(delta);
+    }
+
+    /**
+     * @param value >= 0 (negative values are counted as 0)
+     */
+    public void record(Histogram histogram, long value) {
+        histograms.get(histogram).record(Math.max(0, value));
+    }
+
+    /**
+     * Not atomic across counters: values recorded meanwhile may be in some and not in others.
+     */
+    public Snapshot snapshot() {
+        EnumMap<Counter, Long> c = new EnumMap<>(Counter.class);
+        counters.forEach((k, v) -> c.put(k, v.sum()));
+        EnumMap<Histogram, Distribution> h = new EnumMap<>(Histogram.class);
+        histograms.forEach((k, v) -> h.put(k, v.snapshot()));
+        return new Snapshot(Collections.unmodifiableMap(c), Collections.unmodifiableMap(h));
+    }
+
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(Recorder::reset);
+    }
+
+    public record Snapshot(Map<Counter, Long> counters, Map<Histogram, Distribution> histograms) {
+
+        public long get(Counter counter) {
+            return counters.get(counter);
+        }
+
+        public Distribution get(Histogram histogram) {
+            return histograms.get(histogram);
+        }
+
+        /**
+         * Non-zero counters, then histograms that recorded something; *_NANOS shown in microseconds.
+         */
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            counters.forEach((k, v) -> {
+                if (v != 0) sb.append(String.format("  %-22s: %d%n", k, v));
+            });
+            histograms.forEach((k, d) -> {
+                if (d.count() == 0) return;
+                boolean nanos = k.name().endsWith("_NANOS");
+                String name = nanos ? k.name().replace("_NANOS", " (us)") : k.name();
+                double div = nanos ? 1000.0 : 1.0;
+                sb.append(String.format("  %-22s: n=%d mean=%.1f p50<=%.1f p99<=%.1f max=%.1f%n", name, d.count(),
+                        d.mean() / div, d.percentileUpperBound(0.50) / div, d.percentileUpperBound(0.99) / div, d.max() / div));
+            });
+            return sb.toString();
+        }
+    }
+
+    /**
+     * @param buckets buckets[0]: value 0, buckets[i]: values in [2^(i-1), 2^i)
+     */
+    public record Distribution(long count, long sum, long max, long[] buckets) {
+
+        public double mean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        /**
+         * Largest value of the bucket holding the q-quantile (capped at max): the q-quantile is <= this.
+         */
+        public long percentileUpperBound(double q) {
+            if (q < 0 || q > 1) throw new IllegalArgumentException("q must be in [0, 1]: " + q);
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(q * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return i == 0 ? 0 : Math.min(max, i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1);
+                }
+            }
+            return max;
+        }
+    }
+
+    private static final class Recorder {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value)));
+            count.increment();
+            sum.add(value);
+            long m = max.get();
+            while (value > m && !max.compareAndSet(m, value)) {
+                m = max.get();
+            }
+        }
+
+        Distribution snapshot() {
+            long[] b = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) b[i] = buckets.get(i);
+            return new Distribution(count.sum(), sum.sum(), max.get(), b);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+            count.reset();
+            sum.reset();
+            max.set(0);
+        }
+    }
+}
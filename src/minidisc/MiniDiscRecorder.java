@@ -1,9 +1,22 @@
 package minidisc;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
 
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
 import static minidisc.MiniDiscFormat.DATA_SECTORS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
 
 /**
  * High-level recording API: PCM stream -> ATRAC1 SP clusters -> sectors on disc image.
@@ -14,6 +27,24 @@ import static minidisc.MiniDiscFormat.DATA_SECTORS_PER_CLUSTER;
  * - sectors 32..34: link sectors
  * - sector 35     : subdata sector
  * - For now, link/subdata sectors: header only + zero payload
+ * <p>
+ * Parallel mode: each full cluster is encoded (and its 36 sectors built) on an executor,
+ * up to maxClustersInFlight at a time. The cluster index is assigned when the cluster is handed
+ * to the executor, and clusters are written in that order by the caller's thread,
+ * so the disc layout is the same as in sequential mode.
+ * <p>
+ * Write-behind mode: a bounded ring of cluster buffers sits between writePcmFrames and a dedicated
+ * writer thread, which waits for each cluster's encoding (or performs it, when no encode executor is
+ * given) and writes it to the image. The producer only blocks when every buffer of the ring is in use.
+ * <p>
+ * Failures, all modes: the first encode/write failure stops the recording. Nothing is written after it
+ * (no cluster past the hole, no finalize in close), and it is rethrown (as the cause of an IOException)
+ * by every later writePcmFrames / finalizeRecording / close call. nextProgramCluster() is then meaningless.
+ * <p>
+ * setEdc(true), before the first frame: audio sectors carry their EDC (MiniDiscEdc) in the separator.
+ * <p>
+ * Metrics (MiniDiscMetrics.global() + MiniDiscEvents): PCM frames in, encode and write latency per cluster,
+ * clusters in flight, time writePcmFrames spends blocked on the encoders / the writer.
  */
 public final class MiniDiscRecorder implements AutoCloseable {
 
@@ -21,25 +52,110 @@ public final class MiniDiscRecorder implements AutoCloseable {
     public static final int SOUNDGROUPS_PER_CLUSTER = 176;
     public static final int FRAMES_PER_CLUSTER = FRAMES_PER_SOUNDGROUP * SOUNDGROUPS_PER_CLUSTER; // 90112
 
+    private static final Executor CALLER_THREAD = Runnable::run;
+
     private final LayoutCheckedMiniDiscImage image;
-    private final Atrac1SpClusterEncoder encoder;
+    private final Supplier<? extends Atrac1SpClusterEncoder> encoderFactory;
+    private final ConcurrentLinkedQueue<Atrac1SpClusterEncoder> idleEncoders = new ConcurrentLinkedQueue<>();
+    private final Executor encodeExecutor;
+    private final int maxClustersInFlight;
+    private final int warmUpFrames;             // > 0: every cluster carries the frames before it
+    private final short[] carry;                // tail of the last handed-off cluster (warm-up)
+    private final MiniDiscMetrics metrics = MiniDiscMetrics.global();
 
-    private final short[] pcmInterleavedCluster; // [L0,R0,L1,R1,...]
+    private final ArrayDeque<PendingCluster> inFlight = new ArrayDeque<>(); // submission (= disc) order
+    private final ArrayDeque<PendingCluster> freeClusters = new ArrayDeque<>();
+    private final WriteBehindStage writer;      // null unless write-behind mode
+
+    private PendingCluster current;             // cluster being filled by writePcmFrames
     private int bufferedFrames;                 // 0..FRAMES_PER_CLUSTER
 
     private int nextProgramCluster;             // absolute cluster index in disc image
+    private boolean edc;                        // read by the encode tasks, fixed before the first one
+    private boolean started;
     private boolean closed;
+    private Throwable failure;                  // first encode/write failure (sequential / parallel mode)
 
+    /**
+     * Sequential mode: encode + write on the caller's thread.
+     */
     public MiniDiscRecorder(LayoutCheckedMiniDiscImage image,
                             Atrac1SpClusterEncoder encoder,
                             int startProgramClusterInclusive) {
+        this(image, singleEncoder(encoder), startProgramClusterInclusive, CALLER_THREAD, 1);
+    }
+
+    /**
+     * Parallel mode.
+     *
+     * @param encoderFactory      creates encoders (one up front, then on demand); an encoder is used by one thread
+     *                            at a time, but consecutive clusters may go to different encoders: an encoder that
+     *                            carries state between clusters must declare it through warmUpFrames() / warmUp()
+     * @param encodeExecutor      runs the encode tasks (not owned: not shut down by close)
+     * @param maxClustersInFlight clusters encoded ahead of the write (>= 1), each holds one PCM + one sector buffer
+     */
+    public MiniDiscRecorder(LayoutCheckedMiniDiscImage image,
+                            Supplier<? extends Atrac1SpClusterEncoder> encoderFactory,
+                            int startProgramClusterInclusive,
+                            Executor encodeExecutor,
+                            int maxClustersInFlight) {
+        this(image, encoderFactory, startProgramClusterInclusive, encodeExecutor, maxClustersInFlight, false);
+    }
+
+    /**
+     * @param writeBehind true: clusters are written by a dedicated writer thread and
+     *                    maxClustersInFlight + 1 buffers form the ring (the extra one is being filled)
+     */
+    public MiniDiscRecorder(LayoutCheckedMiniDiscImage image,
+                            Supplier<? extends Atrac1SpClusterEncoder> encoderFactory,
+                            int startProgramClusterInclusive,
+                            Executor encodeExecutor,
+                            int maxClustersInFlight,
+                            boolean writeBehind) {
         this.image = Objects.requireNonNull(image, "image");
-        this.encoder = Objects.requireNonNull(encoder, "encoder");
-        this.pcmInterleavedCluster = new short[FRAMES_PER_CLUSTER * 2];
+        this.encoderFactory = Objects.requireNonNull(encoderFactory, "encoderFactory");
+        this.encodeExecutor = Objects.requireNonNull(encodeExecutor, "encodeExecutor");
+        if (maxClustersInFlight < 1) {
+            throw new IllegalArgumentException("maxClustersInFlight must be >= 1: " + maxClustersInFlight);
+        }
+        this.maxClustersInFlight = maxClustersInFlight;
+        // clusters encoded in disc order by one encoder need no warm-up; with an executor they do
+        Atrac1SpClusterEncoder first = Objects.requireNonNull(encoderFactory.get(), "encoderFactory.get()");
+        idleEncoders.offer(first);
+        int w = encodeExecutor == CALLER_THREAD ? 0 : first.warmUpFrames();
+        if (w < 0 || w > FRAMES_PER_CLUSTER) throw new IllegalArgumentException("warmUpFrames out of range: " + w);
+        this.warmUpFrames = w;
+        this.carry = new short[w * 2];
+        this.writer = writeBehind ? new WriteBehindStage(maxClustersInFlight + 1) : null;
+        this.current = new PendingCluster();
         this.bufferedFrames = 0;
         this.nextProgramCluster = startProgramClusterInclusive;
     }
 
+    /**
+     * Parallel mode on the common fork-join pool, two clusters in flight per core.
+     */
+    public static MiniDiscRecorder parallel(LayoutCheckedMiniDiscImage image,
+                                            Supplier<? extends Atrac1SpClusterEncoder> encoderFactory,
+                                            int startProgramClusterInclusive) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return new MiniDiscRecorder(image, encoderFactory, startProgramClusterInclusive,
+                pool, 2 * pool.getParallelism());
+    }
+
+    /**
+     * Write-behind mode with a single encoder: encoding and writing both run on the writer thread,
+     * while the caller keeps filling the next of ringSize cluster buffers.
+     */
+    public static MiniDiscRecorder writeBehind(LayoutCheckedMiniDiscImage image,
+                                               Atrac1SpClusterEncoder encoder,
+                                               int startProgramClusterInclusive,
+                                               int ringSize) {
+        if (ringSize < 2) throw new IllegalArgumentException("ringSize must be >= 2: " + ringSize);
+        return new MiniDiscRecorder(image, singleEncoder(encoder), startProgramClusterInclusive,
+                CALLER_THREAD, ringSize - 1, true);
+    }
+
     /**
      * Appends PCM frames (stereo interleaved, 16-bit).
      *
@@ -49,14 +165,17 @@ public final class MiniDiscRecorder implements AutoCloseable {
      */
     public void writePcmFrames(short[] interleavedStereo, int offsetFrames, int frameCount) throws IOException {
         ensureOpen();
+        checkFailure();
         Objects.requireNonNull(interleavedStereo, "interleavedStereo");
         if (offsetFrames < 0 || frameCount < 0) throw new IllegalArgumentException("negative offset/count");
+        started = true;
 
         int startSample = offsetFrames * 2;
         int samplesToCopy = frameCount * 2;
         if (startSample + samplesToCopy > interleavedStereo.length) {
             throw new IllegalArgumentException("Buffer too small for offset/count");
         }
+        metrics.add(MiniDiscMetrics.Counter.PCM_FRAMES_IN, frameCount);
 
         int framesRemaining = frameCount;
         int srcFramePos = offsetFrames;
@@ -67,7 +186,7 @@ public final class MiniDiscRecorder implements AutoCloseable {
 
             int dstSamplePos = bufferedFrames * 2;
             int srcSamplePos = srcFramePos * 2;
-            System.arraycopy(interleavedStereo, srcSamplePos, pcmInterleavedCluster, dstSamplePos, n * 2);
+            System.arraycopy(interleavedStereo, srcSamplePos, current.pcm, dstSamplePos, n * 2);
 
             bufferedFrames += n;
             srcFramePos += n;
@@ -83,74 +202,375 @@ public final class MiniDiscRecorder implements AutoCloseable {
      * Finalizes recording (like pressing STOP):
      * - pads the last partial cluster with zeros
      * - writes it
+     * - waits for the clusters still being encoded and writes them
      */
     public void finalizeRecording() throws IOException {
         ensureOpen();
+        checkFailure();
+        started = true;
         if (bufferedFrames > 0) {
             // zero pad tail
             int fromSample = bufferedFrames * 2;
-            for (int i = fromSample; i < pcmInterleavedCluster.length; i++) {
-                pcmInterleavedCluster[i] = 0;
+            for (int i = fromSample; i < current.pcm.length; i++) {
+                current.pcm[i] = 0;
             }
             writeBufferedCluster(true);
         }
+        if (writer != null) {
+            writer.awaitAllWritten();
+        }
+        while (!inFlight.isEmpty()) {
+            commitOldest();
+        }
+    }
+
+    /**
+     * Next cluster that will be assigned (i.e. end of the recorded range, exclusive, once finalized).
+     */
+    public int nextProgramCluster() {
+        return nextProgramCluster;
+    }
+
+    /**
+     * @throws IllegalStateException once frames have been written
+     */
+    public void setEdc(boolean edc) {
+        if (started) throw new IllegalStateException("EDC must be set before the first frame");
+        this.edc = edc;
     }
 
     @Override
     public void close() throws IOException {
         if (closed) return;
         try {
+            checkFailure(); // a failed recording is not finalized
             finalizeRecording();
         } finally {
             closed = true;
+            awaitInFlightQuietly();
+            if (writer != null) writer.shutdown();
         }
     }
 
+    /**
+     * Hands the buffered cluster to the encoder and writes every cluster whose turn has come.
+     */
     private void writeBufferedCluster(boolean lastCluster) throws IOException {
-        // 1) Encode PCM cluster -> 32 audio sectors (raw 2352 bytes)
-        MiniDiscSector[] audioSectors = encoder.encodeClusterToAudioSectors(pcmInterleavedCluster, lastCluster);
-        if (audioSectors.length != DATA_SECTORS_PER_CLUSTER) {
-            throw new IllegalStateException("Encoder must return " + DATA_SECTORS_PER_CLUSTER
-                    + " audio sectors, got " + audioSectors.length);
+        PendingCluster job = current;
+        job.clusterIndex = nextProgramCluster++;
+        job.lastCluster = lastCluster;
+        bufferedFrames = 0;
+        // warm-up frames of the next cluster, taken before the job can be recycled
+        System.arraycopy(job.pcm, job.pcm.length - carry.length, carry, 0, carry.length);
+
+        if (writer != null) {
+            // encoding deferred to the writer thread when there is no encode executor
+            job.encoded = encodeExecutor == CALLER_THREAD ? null : CompletableFuture.runAsync(job::encode, encodeExecutor);
+            writer.submit(job);
+            metrics.record(MiniDiscMetrics.Histogram.CLUSTERS_IN_FLIGHT, writer.pending());
+            current = writer.acquireFree(); // backpressure: blocks while the ring is full
+            System.arraycopy(carry, 0, current.history, 0, carry.length);
+            return;
         }
 
-        int clusterIndex = nextProgramCluster;
+        job.encoded = CompletableFuture.runAsync(job::encode, encodeExecutor);
+        inFlight.addLast(job);
+        metrics.record(MiniDiscMetrics.Histogram.CLUSTERS_IN_FLIGHT, inFlight.size());
 
-        // 2) Write audio sectors 0..31
-        for (int s = 0; s < DATA_SECTORS_PER_CLUSTER; s++) {
-            image.writeSector(clusterIndex, s, audioSectors[s].rawUnsafe());
+        current = freeClusters.isEmpty() ? new PendingCluster() : freeClusters.pollFirst();
+        System.arraycopy(carry, 0, current.history, 0, carry.length);
+
+        // In-order commit: block on the oldest cluster once the window is full,
+        // otherwise only drain what is already encoded.
+        while (!inFlight.isEmpty() && (inFlight.size() >= maxClustersInFlight || inFlight.peekFirst().encoded.isDone())) {
+            commitOldest();
         }
+    }
 
-        // 3) Write link sectors 32..34 (header only + zeros)
-        for (int s = 32; s <= 34; s++) {
-            MiniDiscSector linkSector =
-                    MiniDiscSector.fromAddressWithLinkAndZeroPayload(
-                            new MiniDiscAddress(clusterIndex, s)
-                    );
-            image.writeSector(clusterIndex, s, linkSector.rawUnsafe());
+    private void commitOldest() throws IOException {
+        checkFailure();
+        PendingCluster job = inFlight.pollFirst();
+        MiniDiscEvents.ClusterWrite event = new MiniDiscEvents.ClusterWrite();
+        event.begin();
+        try {
+            if (!job.encoded.isDone()) {
+                long t0 = System.nanoTime();
+                job.awaitEncoded();
+                metrics.record(MiniDiscMetrics.Histogram.PRODUCER_WAIT_NANOS, System.nanoTime() - t0);
+            } else {
+                job.awaitEncoded();
+            }
+            job.write(event, inFlight.size() + 1);
+        } catch (Throwable t) {
+            failure = t; // the clusters after this one are never written
+            throw t;
         }
+        job.encoded = null;
+        freeClusters.addLast(job);
+    }
 
-        writeSubdataSector(clusterIndex);
+    private void checkFailure() throws IOException {
+        if (failure != null) throw new IOException("Recording failed", failure);
+        if (writer != null) writer.checkFailure();
+    }
 
-        nextProgramCluster++;
-        bufferedFrames = 0;
+    private void awaitInFlightQuietly() {
+        for (PendingCluster job : inFlight) {
+            try {
+                job.encoded.join();
+            } catch (RuntimeException ignored) {
+                // failure already reported (or recording abandoned)
+            }
+        }
+        inFlight.clear();
+    }
+
+    private Atrac1SpClusterEncoder acquireEncoder() {
+        Atrac1SpClusterEncoder encoder = idleEncoders.poll();
+        return encoder != null ? encoder : Objects.requireNonNull(encoderFactory.get(), "encoderFactory.get()");
     }
 
-    private void writeSubdataSector(int clusterIndex) throws IOException {
-        int s = 35;
-        MiniDiscSector subdataSector = MiniDiscSector.fromAddressWithSubdataAndZeroPayload(
-                new MiniDiscAddress(clusterIndex, s)
-        );
-        image.writeSector(clusterIndex, s, subdataSector.rawUnsafe());
+    private static Supplier<Atrac1SpClusterEncoder> singleEncoder(Atrac1SpClusterEncoder encoder) {
+        Objects.requireNonNull(encoder, "encoder");
+        return () -> encoder;
     }
 
     private void ensureOpen() {
         if (closed) throw new IllegalStateException("Recorder closed");
     }
 
+    /**
+     * One cluster moving through the pipeline: PCM in, 36 raw sectors out.
+     * Recycled once written.
+     */
+    private final class PendingCluster {
+        final short[] pcm;     // [L0,R0,L1,R1,...]
+        final short[] history; // warmUpFrames frames preceding pcm (zeros before the first cluster)
+        final byte[] sectors;  // 36 raw sectors, written in one call
+        int clusterIndex;
+        boolean lastCluster;
+        CompletableFuture<Void> encoded;
+
+        PendingCluster() {
+            this(FRAMES_PER_CLUSTER * 2, CLUSTER_BYTES);
+        }
+
+        PendingCluster(int pcmSamples, int sectorBytes) {
+            this.pcm = new short[pcmSamples];
+            this.history = new short[pcmSamples == 0 ? 0 : warmUpFrames * 2];
+            this.sectors = new byte[sectorBytes];
+        }
+
+        void awaitEncoded() throws IOException {
+            try {
+                encoded.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException io) throw io;
+                if (cause instanceof RuntimeException re) throw re;
+                if (cause instanceof Error err) throw err;
+                throw new IOException("Cluster encoding failed: " + clusterIndex, cause);
+            }
+        }
+
+        /**
+         * Writes the 36 sectors; 'event' was begun before waiting for the encoding.
+         */
+        void write(MiniDiscEvents.ClusterWrite event, int inFlight) throws IOException {
+            long t0 = System.nanoTime();
+            image.writeCluster(clusterIndex, sectors);
+            metrics.record(MiniDiscMetrics.Histogram.CLUSTER_WRITE_NANOS, System.nanoTime() - t0);
+            if (event.shouldCommit()) {
+                event.cluster = clusterIndex;
+                event.inFlight = inFlight;
+                event.commit();
+            }
+        }
+
+        /**
+         * Runs on the encode executor.
+         */
+        void encode() {
+            MiniDiscEvents.ClusterEncode event = new MiniDiscEvents.ClusterEncode();
+            event.begin();
+            long t0 = System.nanoTime();
+            Atrac1SpClusterEncoder encoder = acquireEncoder();
+            try {
+                // 0) Pooled encoder, any previous cluster: restore the state of an in-order encoding
+                if (warmUpFrames > 0) encoder.warmUp(history);
+
+                // 1) Encode PCM cluster -> 32 audio sectors (raw 2352 bytes)
+                MiniDiscSector[] audioSectors = encoder.encodeClusterToAudioSectors(pcm, lastCluster);
+                if (audioSectors.length != DATA_SECTORS_PER_CLUSTER) {
+                    throw new IllegalStateException("Encoder must return " + DATA_SECTORS_PER_CLUSTER
+                            + " audio sectors, got " + audioSectors.length);
+                }
+
+                // 2) Audio sectors 0..31: encoder payload, header rebuilt for the actual cluster address (+ EDC)
+                for (int s = 0; s < DATA_SECTORS_PER_CLUSTER; s++) {
+                    MiniDiscSector.buildAudioSectorInto(clusterIndex, s,
+                            audioSectors[s].rawUnsafe(), MiniDiscSector.AUDIO_BLOCK_OFFSET,
+                            sectors, s * SECTOR_BYTES, edc);
+                }
+
+                // 3) Link sectors 32..34 + subdata sector 35 (header only + zeros, from templates)
+                MiniDiscSector.buildClusterTailInto(clusterIndex, sectors, 0);
+            } finally {
+                idleEncoders.offer(encoder);
+            }
+            metrics.add(MiniDiscMetrics.Counter.CLUSTERS_ENCODED, 1);
+            metrics.record(MiniDiscMetrics.Histogram.CLUSTER_ENCODE_NANOS, System.nanoTime() - t0);
+            if (event.shouldCommit()) {
+                event.cluster = clusterIndex;
+                event.lastCluster = lastCluster;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Writer thread + ring of cluster buffers (write-behind mode).
+     * Producer side (writePcmFrames / finalizeRecording) runs on the caller's thread.
+     */
+    private final class WriteBehindStage implements Runnable {
+        private final BlockingQueue<PendingCluster> toWrite = new LinkedBlockingQueue<>();
+        private final BlockingQueue<PendingCluster> free;
+        private final int ringSize;
+        private final PendingCluster stop = new PendingCluster(0, 0);
+        private final Thread thread;
+
+        private int allocated = 1;   // producer side; 'current' is the first buffer of the ring
+        private long submitted;      // producer side
+        private long written;        // guarded by this
+        private volatile Throwable failure;
+
+        WriteBehindStage(int ringSize) {
+            this.ringSize = ringSize;
+            this.free = new ArrayBlockingQueue<>(ringSize);
+            this.thread = new Thread(this, "md-recorder-writer");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void submit(PendingCluster job) throws IOException {
+            checkFailure();
+            submitted++;
+            toWrite.add(job);
+        }
+
+        PendingCluster acquireFree() throws IOException {
+            PendingCluster next = free.poll();
+            if (next != null) return next;
+            if (allocated < ringSize) {
+                allocated++;
+                return new PendingCluster();
+            }
+            long t0 = System.nanoTime();
+            try {
+                // the writer keeps recycling buffers after a failure, so this cannot hang on it
+                next = free.take();
+                metrics.record(MiniDiscMetrics.Histogram.PRODUCER_WAIT_NANOS, System.nanoTime() - t0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a free cluster buffer");
+            }
+            checkFailure();
+            return next;
+        }
+
+        /**
+         * Clusters submitted and not written yet (producer side).
+         */
+        synchronized long pending() {
+            return submitted - written;
+        }
+
+        void awaitAllWritten() throws IOException {
+            synchronized (this) {
+                while (written < submitted && failure == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for pending cluster writes");
+                    }
+                }
+            }
+            checkFailure();
+        }
+
+        void checkFailure() throws IOException {
+            Throwable t = failure;
+            if (t != null) {
+                throw new IOException("Write-behind stage failed", t);
+            }
+        }
+
+        void shutdown() {
+            toWrite.add(stop);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                PendingCluster job;
+                try {
+                    job = toWrite.take();
+                } catch (InterruptedException e) {
+                    fail(e);
+                    return;
+                }
+                if (job == stop) return;
+
+                if (failure == null) {
+                    try {
+                        MiniDiscEvents.ClusterWrite event = new MiniDiscEvents.ClusterWrite();
+                        event.begin();
+                        if (job.encoded == null) {
+                            job.encode();
+                        } else {
+                            job.awaitEncoded();
+                        }
+                        job.write(event, toWrite.size() + 1);
+                    } catch (Throwable t) {
+                        fail(t);
+                    }
+                } else if (job.encoded != null) {
+                    // drop it, but never recycle a buffer an encoder may still be writing into
+                    job.encoded.exceptionally(t -> null).join();
+                }
+
+                job.encoded = null;
+                free.add(job);
+                synchronized (this) {
+                    written++;
+                    notifyAll();
+                }
+            }
+        }
+
+        private void fail(Throwable t) {
+            synchronized (this) {
+                if (failure == null) failure = t;
+                notifyAll();
+            }
+        }
+    }
+
     /**
      * Minimal contract: "cluster PCM -> 32 audio sectors".
      * Keep it narrow to avoid leaking codec internals into disk layer.
+     * <p>
+     * The returned sectors only need to stay valid until the next call on the same instance.
+     * <p>
+     * An encoder that carries state from one cluster to the next (filter history...) declares
+     * warmUpFrames() > 0: when clusters may be encoded out of order or by different instances
+     * (encode executor), each cluster is preceded by warmUp() with the frames just before it.
      */
     public interface Atrac1SpClusterEncoder {
         /**
@@ -158,5 +578,21 @@ public final class MiniDiscRecorder implements AutoCloseable {
          * @param lastCluster           true if this cluster contains padding at the end
          */
         MiniDiscSector[] encodeClusterToAudioSectors(short[] pcmInterleavedCluster, boolean lastCluster);
+
+        /**
+         * Frames of history warmUp() needs, 0..FRAMES_PER_CLUSTER; 0 (default): no state between clusters.
+         */
+        default int warmUpFrames() {
+            return 0;
+        }
+
+        /**
+         * Replaces the encoder's state by the one it would have after encoding, in sequence, the
+         * warmUpFrames() frames that precede the next cluster (zeros before the first cluster of a recording).
+         *
+         * @param precedingInterleaved warmUpFrames() * 2 samples
+         */
+        default void warmUp(short[] precedingInterleaved) {
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package minidisc;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -19,6 +20,13 @@ public final class MiniDiscSector {
     private static final byte bFF = (byte) 0xFF;
     private static final byte[] DEFAULT_SYNC = { 0x00, bFF , bFF , bFF , bFF , bFF , bFF , bFF , bFF , bFF , bFF, 00};
 
+    /*
+     * LINK / SUBDATA sectors are sync + header + mode + zeros: the only bytes that change
+     * from one sector to another are the 3 address bytes, patched over a copy of these templates.
+     */
+    private static final byte[] LINK_TEMPLATE = zeroPayloadTemplate(32);
+    private static final byte[] SUBDATA_TEMPLATE = zeroPayloadTemplate(35);
+
     private final byte[] raw2352; // always 2352
 
     private MiniDiscSector(byte[] raw2352) {
@@ -48,48 +56,18 @@ public final class MiniDiscSector {
 
     public static MiniDiscSector fromAddressWithLinkAndZeroPayload(MiniDiscAddress addr) {
         Objects.requireNonNull(addr, "addr");
-        if (addr.sectorRole() != SectorRole.LINK) {
-            throw new IllegalArgumentException("LINK payload can only be written to LINK sectors (32..34)");
-        }
-        return fromAddressAndData2332Layout(addr, new byte[AUDIO_BLOCK_BYTES]);
+        byte[] raw = new byte[MiniDiscFormat.SECTOR_BYTES];
+        buildLinkSectorInto(addr.clusterIndex(), addr.sectorIndex(), raw, 0);
+        return new MiniDiscSector(raw);
     }
 
     public static MiniDiscSector fromAddressWithSubdataAndZeroPayload(MiniDiscAddress addr) {
         Objects.requireNonNull(addr, "addr");
-        if (addr.sectorRole() != SectorRole.SUBDATA) {
-            throw new IllegalArgumentException("SUBDATA payload can only be written to SUBDATA sector (35)");
-        }
-        return fromAddressAndData2332Layout(addr, new byte[AUDIO_BLOCK_BYTES]);
-    }
-
-    /**
-     * Same physical layout as your audio sectors (16B header + 4x00 + 2332 data),
-     * but semantically not "audio".
-     */
-    private static MiniDiscSector fromAddressAndData2332Layout(MiniDiscAddress addr, byte[] data2332) {
-        if (data2332.length != AUDIO_BLOCK_BYTES) {
-            throw new IllegalArgumentException("Data must be exactly " + AUDIO_BLOCK_BYTES + " bytes");
-        }
-
         byte[] raw = new byte[MiniDiscFormat.SECTOR_BYTES];
-
-        System.arraycopy(DEFAULT_SYNC, 0, raw, 0, SYNC_BYTES);
-
-        addr.writeAddressToHeader(raw, HEADER_OFFSET);
-        raw[MODE_OFFSET] = MiniDiscSectorMode.MINI_DISC.code();
-
-        // separator (zeros)
-        raw[AUDIO_SEP_OFFSET] = 0;
-        raw[AUDIO_SEP_OFFSET + 1] = 0;
-        raw[AUDIO_SEP_OFFSET + 2] = 0;
-        raw[AUDIO_SEP_OFFSET + 3] = 0;
-
-        System.arraycopy(data2332, 0, raw, AUDIO_BLOCK_OFFSET, AUDIO_BLOCK_BYTES);
-
+        buildSubdataSectorInto(addr.clusterIndex(), addr.sectorIndex(), raw, 0);
         return new MiniDiscSector(raw);
     }
 
-
     /**
      * Audio sector: header + 4x00 separator + 2332-byte Audio Block. Mode forced to 2.
      */
@@ -97,38 +75,193 @@ public final class MiniDiscSector {
         Objects.requireNonNull(addr, "addr");
         Objects.requireNonNull(audioBlock2332, "audioBlock2332");
 
-        if (addr.sectorRole() != SectorRole.DATA) {
-            throw new IllegalArgumentException("AudioBlock can only be written to DATA sectors (0..31)");
-        }
         if (audioBlock2332.length != AUDIO_BLOCK_BYTES) {
             throw new IllegalArgumentException("AudioBlock must be exactly " + AUDIO_BLOCK_BYTES + " bytes");
         }
-        return fromAddressAndData2332Layout(addr, audioBlock2332);
+        byte[] raw = new byte[MiniDiscFormat.SECTOR_BYTES];
+        buildAudioSectorInto(addr.clusterIndex(), addr.sectorIndex(), audioBlock2332, 0, raw, 0);
+        return new MiniDiscSector(raw);
     }
 
     /**
      * TOC/UTOC-like sector: header immediately followed by 2336 bytes data. Mode forced to 2.
      */
     public static MiniDiscSector fromAddressAndTocData(MiniDiscAddress addr, byte[] tocData2336) {
+        return fromAddressAndTocData(addr, tocData2336, false);
+    }
+
+    /**
+     * @param edc true: the last 4 bytes (spare in the UTOC) hold the sector's EDC (MiniDiscEdc.writeToc)
+     */
+    public static MiniDiscSector fromAddressAndTocData(MiniDiscAddress addr, byte[] tocData2336, boolean edc) {
         Objects.requireNonNull(addr, "addr");
         Objects.requireNonNull(tocData2336, "tocData2336");
 
         if (tocData2336.length != TOC_DATA_BYTES) {
             throw new IllegalArgumentException("TOC data must be exactly " + TOC_DATA_BYTES + " bytes");
         }
-
         byte[] raw = new byte[MiniDiscFormat.SECTOR_BYTES];
+        buildTocSectorInto(addr.clusterIndex(), addr.sectorIndex(), tocData2336, 0, raw, 0, edc);
+        return new MiniDiscSector(raw);
+    }
 
-        System.arraycopy(DEFAULT_SYNC, 0, raw, 0, SYNC_BYTES);
+    // ---------------------------------------------------------------------------------------------
+    // In-place builders: write a whole 2352-byte sector into a caller-owned buffer, no allocation.
+    // dstOffset / dstIndex is the first byte of the sector (e.g. sectorIndex * 2352 in a cluster buffer).
+    // ---------------------------------------------------------------------------------------------
 
-        addr.writeAddressToHeader(raw, HEADER_OFFSET);
-        raw[MODE_OFFSET] = MiniDiscSectorMode.MINI_DISC.code();
+    /**
+     * Audio sector (DATA role, 0..31): sync + header + mode 2 + 4x00 separator + 2332-byte Audio Block.
+     */
+    public static void buildAudioSectorInto(int clusterIndex, int sectorIndex,
+                                            byte[] audioBlock, int audioOffset,
+                                            byte[] dst, int dstOffset) {
+        buildAudioSectorInto(clusterIndex, sectorIndex, audioBlock, audioOffset, dst, dstOffset, false);
+    }
 
-        // TOC data starts right after header at offset 16
-        System.arraycopy(tocData2336, 0, raw, TOC_DATA_OFFSET, TOC_DATA_BYTES);
+    /**
+     * @param edc true: the separator holds the sector's EDC (MiniDiscEdc) instead of 4x00
+     */
+    public static void buildAudioSectorInto(int clusterIndex, int sectorIndex,
+                                            byte[] audioBlock, int audioOffset,
+                                            byte[] dst, int dstOffset, boolean edc) {
+        checkAddress(clusterIndex, sectorIndex, SectorRole.DATA);
+        System.arraycopy(DEFAULT_SYNC, 0, dst, dstOffset, SYNC_BYTES);
+        MiniDiscAddress.writeAddressToHeader(dst, dstOffset + HEADER_OFFSET, clusterIndex, sectorIndex);
+        dst[dstOffset + MODE_OFFSET] = MiniDiscSectorMode.MINI_DISC.code();
+        System.arraycopy(audioBlock, audioOffset, dst, dstOffset + AUDIO_BLOCK_OFFSET, AUDIO_BLOCK_BYTES);
+        if (edc) {
+            MiniDiscEdc.write(dst, dstOffset);
+        } else {
+            Arrays.fill(dst, dstOffset + AUDIO_SEP_OFFSET, dstOffset + AUDIO_BLOCK_OFFSET, (byte) 0);
+        }
+    }
 
-        return new MiniDiscSector(raw);
+    public static void buildAudioSectorInto(int clusterIndex, int sectorIndex,
+                                            byte[] audioBlock, int audioOffset,
+                                            ByteBuffer dst, int dstIndex) {
+        checkAddress(clusterIndex, sectorIndex, SectorRole.DATA);
+        dst.put(dstIndex, DEFAULT_SYNC, 0, SYNC_BYTES);
+        MiniDiscAddress.writeAddressToHeader(dst, dstIndex + HEADER_OFFSET, clusterIndex, sectorIndex);
+        dst.put(dstIndex + MODE_OFFSET, MiniDiscSectorMode.MINI_DISC.code());
+        dst.putInt(dstIndex + AUDIO_SEP_OFFSET, 0);
+        dst.put(dstIndex + AUDIO_BLOCK_OFFSET, audioBlock, audioOffset, AUDIO_BLOCK_BYTES);
     }
+
+    /**
+     * Rewrites only sync + header + mode + separator of a DATA sector whose Audio Block is already in place.
+     */
+    public static void buildAudioHeaderInto(int clusterIndex, int sectorIndex, byte[] dst, int dstOffset) {
+        checkAddress(clusterIndex, sectorIndex, SectorRole.DATA);
+        System.arraycopy(DEFAULT_SYNC, 0, dst, dstOffset, SYNC_BYTES);
+        MiniDiscAddress.writeAddressToHeader(dst, dstOffset + HEADER_OFFSET, clusterIndex, sectorIndex);
+        dst[dstOffset + MODE_OFFSET] = MiniDiscSectorMode.MINI_DISC.code();
+        Arrays.fill(dst, dstOffset + AUDIO_SEP_OFFSET, dstOffset + AUDIO_BLOCK_OFFSET, (byte) 0);
+    }
+
+    /**
+     * Stores the EDC of a DATA sector whose header and Audio Block are in place (e.g. after buildAudioHeaderInto).
+     */
+    public static void writeAudioEdcInto(byte[] dst, int dstOffset) {
+        MiniDiscEdc.write(dst, dstOffset);
+    }
+
+    /**
+     * LINK sector (32..34), zero payload: template copy + 3 address bytes.
+     */
+    public static void buildLinkSectorInto(int clusterIndex, int sectorIndex, byte[] dst, int dstOffset) {
+        checkAddress(clusterIndex, sectorIndex, SectorRole.LINK);
+        System.arraycopy(LINK_TEMPLATE, 0, dst, dstOffset, MiniDiscFormat.SECTOR_BYTES);
+        MiniDiscAddress.writeAddressToHeader(dst, dstOffset + HEADER_OFFSET, clusterIndex, sectorIndex);
+    }
+
+    public static void buildLinkSectorInto(int clusterIndex, int sectorIndex, ByteBuffer dst, int dstIndex) {
+        checkAddress(clusterIndex, sectorIndex, SectorRole.LINK);
+        dst.put(dstIndex, LINK_TEMPLATE);
+        MiniDiscAddress.writeAddressToHeader(dst, dstIndex + HEADER_OFFSET, clusterIndex, sectorIndex);
+    }
+
+    /**
+     * SUBDATA sector (35), zero payload: template copy + 3 address bytes.
+     */
+    public static void buildSubdataSectorInto(int clusterIndex, int sectorIndex, byte[] dst, int dstOffset) {
+        checkAddress(clusterIndex, sectorIndex, SectorRole.SUBDATA);
+        System.arraycopy(SUBDATA_TEMPLATE, 0, dst, dstOffset, MiniDiscFormat.SECTOR_BYTES);
+        MiniDiscAddress.writeAddressToHeader(dst, dstOffset + HEADER_OFFSET, clusterIndex, sectorIndex);
+    }
+
+    public static void buildSubdataSectorInto(int clusterIndex, int sectorIndex, ByteBuffer dst, int dstIndex) {
+        checkAddress(clusterIndex, sectorIndex, SectorRole.SUBDATA);
+        dst.put(dstIndex, SUBDATA_TEMPLATE);
+        MiniDiscAddress.writeAddressToHeader(dst, dstIndex + HEADER_OFFSET, clusterIndex, sectorIndex);
+    }
+
+    /**
+     * TOC/UTOC-like sector: sync + header + mode 2 + 2336 bytes data.
+     */
+    public static void buildTocSectorInto(int clusterIndex, int sectorIndex,
+                                          byte[] tocData, int tocOffset,
+                                          byte[] dst, int dstOffset) {
+        buildTocSectorInto(clusterIndex, sectorIndex, tocData, tocOffset, dst, dstOffset, false);
+    }
+
+    /**
+     * @param edc true: the last 4 bytes of the sector are replaced by its EDC (MiniDiscEdc.writeToc)
+     */
+    public static void buildTocSectorInto(int clusterIndex, int sectorIndex,
+                                          byte[] tocData, int tocOffset,
+                                          byte[] dst, int dstOffset, boolean edc) {
+        checkAddress(clusterIndex, sectorIndex, null);
+        System.arraycopy(DEFAULT_SYNC, 0, dst, dstOffset, SYNC_BYTES);
+        MiniDiscAddress.writeAddressToHeader(dst, dstOffset + HEADER_OFFSET, clusterIndex, sectorIndex);
+        dst[dstOffset + MODE_OFFSET] = MiniDiscSectorMode.MINI_DISC.code();
+        System.arraycopy(tocData, tocOffset, dst, dstOffset + TOC_DATA_OFFSET, TOC_DATA_BYTES);
+        if (edc) MiniDiscEdc.writeToc(dst, dstOffset);
+    }
+
+    /**
+     * Writes the 3 link + 1 subdata sectors (32..35) of a cluster buffer.
+     */
+    public static void buildClusterTailInto(int clusterIndex, byte[] cluster84672, int clusterOffset) {
+        for (int s = MiniDiscFormat.DATA_SECTORS_PER_CLUSTER; s < MiniDiscFormat.SECTORS_PER_CLUSTER - 1; s++) {
+            buildLinkSectorInto(clusterIndex, s, cluster84672, clusterOffset + s * MiniDiscFormat.SECTOR_BYTES);
+        }
+        int s = MiniDiscFormat.SECTORS_PER_CLUSTER - 1;
+        buildSubdataSectorInto(clusterIndex, s, cluster84672, clusterOffset + s * MiniDiscFormat.SECTOR_BYTES);
+    }
+
+    /**
+     * true if raw[offset .. offset + 12) is the sync pattern written by the builders.
+     */
+    static boolean hasDefaultSync(byte[] raw, int offset) {
+        return Arrays.equals(raw, offset, offset + SYNC_BYTES, DEFAULT_SYNC, 0, SYNC_BYTES);
+    }
+
+    /**
+     * Same range checks as MiniDiscAddress, without the instance. role == null: any role.
+     */
+    private static void checkAddress(int clusterIndex, int sectorIndex, SectorRole role) {
+        if (clusterIndex < 0 || clusterIndex > 0xFFFF) {
+            throw new IllegalArgumentException("clusterIndex out of range: " + clusterIndex);
+        }
+        SectorRole actual = SectorRole.fromSectorIndex(sectorIndex);
+        if (role != null && actual != role) {
+            throw new IllegalArgumentException(switch (role) {
+                case DATA -> "AudioBlock can only be written to DATA sectors (0..31)";
+                case LINK -> "LINK payload can only be written to LINK sectors (32..34)";
+                case SUBDATA -> "SUBDATA payload can only be written to SUBDATA sector (35)";
+            });
+        }
+    }
+
+    private static byte[] zeroPayloadTemplate(int sectorIndex) {
+        byte[] raw = new byte[MiniDiscFormat.SECTOR_BYTES];
+        System.arraycopy(DEFAULT_SYNC, 0, raw, 0, SYNC_BYTES);
+        MiniDiscAddress.writeAddressToHeader(raw, HEADER_OFFSET, 0, sectorIndex);
+        raw[MODE_OFFSET] = MiniDiscSectorMode.MINI_DISC.code();
+        return raw;
+    }
+
     /**
      * Safe copy out.
      */
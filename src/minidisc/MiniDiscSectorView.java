@@ -0,0 +1,185 @@
+package minidisc;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+
+/**
+ * Read-side flyweight: decodes a 2352-byte sector in place, over a ByteBuffer (heap, direct, mapped)
+ * or a byte[] cluster buffer, and is repositioned with at() instead of being re-created.
+ * <p>
+ * - wrap / at: no copy, no allocation (wrapping a new byte[] allocates its ByteBuffer once)
+ * - field getters (clusterIndex, sectorIndex, role, mode...): absolute reads, no allocation
+ * - audioBlock() / tocData(): slices sharing the bytes (one small object, no copy);
+ *   audioBlockIndex() / tocDataIndex() + buffer() when even that is too much
+ * - address() / toSector(): allocate, for interop with the value types
+ * Absolute reads only: the position / limit / byte order of the buffer are not used or changed.
+ * A MemorySegment is viewed through segment.asByteBuffer() (the FFM API is still preview in JDK 21).
+ * <p>
+ * Mutable, not thread-safe: one view per thread.
+ */
+public final class MiniDiscSectorView {
+
+    private ByteBuffer buffer;
+    private byte[] array;       // array wrapped by buffer, when wrap(byte[]) was used
+    private int index;
+
+    /**
+     * Unpositioned: wrap() before use.
+     */
+    public MiniDiscSectorView() {
+    }
+
+    public static MiniDiscSectorView of(ByteBuffer buffer, int index) {
+        return new MiniDiscSectorView().wrap(buffer, index);
+    }
+
+    public static MiniDiscSectorView of(byte[] buffer, int offset) {
+        return new MiniDiscSectorView().wrap(buffer, offset);
+    }
+
+    /**
+     * @param index first byte of the sector in buffer (absolute)
+     */
+    public MiniDiscSectorView wrap(ByteBuffer buffer, int index) {
+        Objects.requireNonNull(buffer, "buffer");
+        Objects.checkFromIndexSize(index, SECTOR_BYTES, buffer.limit());
+        this.buffer = buffer;
+        this.array = null;
+        this.index = index;
+        return this;
+    }
+
+    /**
+     * @param offset first byte of the sector in buffer (e.g. sectorIndex * 2352 in a cluster buffer)
+     */
+    public MiniDiscSectorView wrap(byte[] buffer, int offset) {
+        Objects.requireNonNull(buffer, "buffer");
+        Objects.checkFromIndexSize(offset, SECTOR_BYTES, buffer.length);
+        if (buffer != array) {
+            this.buffer = ByteBuffer.wrap(buffer);
+            this.array = buffer;
+        }
+        this.index = offset;
+        return this;
+    }
+
+    /**
+     * Moves to another sector of the same buffer.
+     */
+    public MiniDiscSectorView at(int index) {
+        if (buffer == null) throw new IllegalStateException("View not wrapped over a buffer");
+        Objects.checkFromIndexSize(index, SECTOR_BYTES, buffer.limit());
+        this.index = index;
+        return this;
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public int index() {
+        return index;
+    }
+
+    /**
+     * true if the 16 header bytes (sync + header + mode) are all zero: never written.
+     */
+    public boolean isUnrecorded() {
+        return buffer.getLong(index) == 0 && buffer.getLong(index + 8) == 0;
+    }
+
+    public boolean hasDefaultSync() {
+        if (buffer.get(index) != 0 || buffer.get(index + MiniDiscSector.SYNC_BYTES - 1) != 0) return false;
+        for (int i = 1; i < MiniDiscSector.SYNC_BYTES - 1; i++) {
+            if (buffer.get(index + i) != (byte) 0xFF) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Header cluster address (BE16).
+     */
+    public int clusterIndex() {
+        int h = index + MiniDiscSector.HEADER_OFFSET;
+        return ((buffer.get(h) & 0xFF) << 8) | (buffer.get(h + 1) & 0xFF);
+    }
+
+    public byte sectorAddressByte() {
+        return buffer.get(index + MiniDiscSector.HEADER_OFFSET + 2);
+    }
+
+    /**
+     * @return 0..35, or -1 if the sector address byte is not a valid one
+     */
+    public int sectorIndex() {
+        return SectorRole.sectorIndexFromAddress(sectorAddressByte());
+    }
+
+    /**
+     * @throws IllegalStateException if the sector address byte is not a valid one
+     */
+    public SectorRole role() {
+        int s = sectorIndex();
+        if (s < 0) throw new IllegalStateException(String.format("Invalid sector address byte 0x%02X", sectorAddressByte() & 0xFF));
+        return SectorRole.fromSectorIndexUnsafe(s);
+    }
+
+    public int modeCode() {
+        return buffer.get(index + MiniDiscSector.MODE_OFFSET) & 0xFF;
+    }
+
+    /**
+     * @throws IllegalArgumentException for a prohibited mode (3..255)
+     */
+    public MiniDiscSectorMode mode() {
+        return MiniDiscSectorMode.fromCode(modeCode());
+    }
+
+    public int audioBlockIndex() {
+        return index + MiniDiscSector.AUDIO_BLOCK_OFFSET;
+    }
+
+    public int tocDataIndex() {
+        return index + MiniDiscSector.TOC_DATA_OFFSET;
+    }
+
+    /**
+     * The 2332-byte Audio Block (DATA sectors), sharing the buffer's bytes.
+     */
+    public ByteBuffer audioBlock() {
+        return buffer.slice(audioBlockIndex(), MiniDiscSector.AUDIO_BLOCK_BYTES);
+    }
+
+    /**
+     * The 2336-byte TOC data (TOC / UTOC sectors), sharing the buffer's bytes.
+     */
+    public ByteBuffer tocData() {
+        return buffer.slice(tocDataIndex(), MiniDiscSector.TOC_DATA_BYTES);
+    }
+
+    /**
+     * Audio sectors only (MiniDiscEdc).
+     */
+    public MiniDiscEdc.Status edcStatus() {
+        return array != null ? MiniDiscEdc.check(array, index) : MiniDiscEdc.check(buffer, index);
+    }
+
+    /**
+     * @throws IllegalStateException if the header address is not a valid one
+     */
+    public MiniDiscAddress address() {
+        role();
+        return new MiniDiscAddress(clusterIndex(), sectorIndex());
+    }
+
+    /**
+     * Copy of the 2352 bytes.
+     */
+    public MiniDiscSector toSector() {
+        byte[] raw = new byte[SECTOR_BYTES];
+        buffer.get(index, raw);
+        return MiniDiscSector.wrapRaw(raw);
+    }
+}
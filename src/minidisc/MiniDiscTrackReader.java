@@ -0,0 +1,283 @@
+package minidisc;
+
+import atrac.Atrac1;
+import atrac.Atrac1Decoder;
+import wav.PcmFrameSource;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+import static minidisc.MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER;
+import static minidisc.MiniDiscRecorder.FRAMES_PER_SOUNDGROUP;
+
+/**
+ * Playback side of MiniDiscRecorder: clusters of a track -> sound groups -> ATRAC1 SP decode
+ * -> interleaved 16-bit stereo PCM.
+ * <p>
+ * Constant memory whatever the track length: a read-ahead thread fills a small ring of buffers
+ * (readAheadBuffers x batchClusters x 84672 bytes, one readClusters per buffer) while the caller decodes
+ * one sound group (512 frames) at a time. The image is only accessed by the read-ahead thread.
+ * <p>
+ * A track is a list of parts (UTOC fragment chain, sound group granularity): they are decoded one after
+ * the other with the same decoder state. A buffer never spans two parts.
+ * <p>
+ * The codec delay is skipped, so frame 0 is the first frame given to the recorder.
+ * The last cluster is decoded in full (recorder padding included).
+ */
+public final class MiniDiscTrackReader implements PcmFrameSource {
+
+    public static final int DEFAULT_READ_AHEAD_CLUSTERS = 4;
+    public static final int DEFAULT_BATCH_CLUSTERS = 16;
+
+    private static final int SOUND_UNITS_PER_SECTOR = MiniDiscSector.AUDIO_BLOCK_BYTES / Atrac1.SOUND_UNIT_BYTES; // 11
+    private static final Chunk END = new Chunk(null);
+
+    private final MiniDiscImage image;
+    private final int batchClusters;
+    private final long[] rangeStart;   // per part: first sound group index (cluster * 176 + sg)
+    private final long[] rangeEnd;     // exclusive
+    private final long soundGroupCount;
+
+    private final Atrac1Decoder left = new Atrac1Decoder();
+    private final Atrac1Decoder right = new Atrac1Decoder();
+    private final short[] soundGroupPcm = new short[FRAMES_PER_SOUNDGROUP * 2];
+    private int soundGroupFrame = FRAMES_PER_SOUNDGROUP; // next frame to hand out from soundGroupPcm
+    private int framesToSkip = Atrac1Decoder.CODEC_DELAY_SAMPLES;
+
+    private final BlockingQueue<Chunk> free;
+    private final BlockingQueue<Chunk> filled;
+    private final Thread readAhead;
+    private volatile Throwable failure;
+
+    private Chunk chunk;               // buffer being decoded, null before the first / after the last
+    private int nextSoundGroup;        // in 'chunk'
+    private boolean eof;
+    private boolean closed;
+
+    public MiniDiscTrackReader(MiniDiscImage image, int firstCluster, int clusterCount) {
+        this(image, firstCluster, clusterCount, DEFAULT_READ_AHEAD_CLUSTERS);
+    }
+
+    /**
+     * Whole clusters firstCluster..firstCluster + clusterCount - 1, one cluster per read.
+     *
+     * @param readAheadClusters cluster buffers in the ring (>= 1)
+     */
+    public MiniDiscTrackReader(MiniDiscImage image, int firstCluster, int clusterCount, int readAheadClusters) {
+        this(image, clusterRange(image, firstCluster, clusterCount), readAheadClusters, 1);
+    }
+
+    /**
+     * Track parts in order (Utoc.trackParts), DEFAULT_READ_AHEAD_CLUSTERS buffers of DEFAULT_BATCH_CLUSTERS.
+     */
+    public MiniDiscTrackReader(MiniDiscImage image, List<Utoc.Part> parts) {
+        this(image, parts, DEFAULT_READ_AHEAD_CLUSTERS, DEFAULT_BATCH_CLUSTERS);
+    }
+
+    /**
+     * @param readAheadBuffers buffers in the ring (>= 1)
+     * @param batchClusters    clusters per buffer = per readClusters call (>= 1)
+     */
+    public MiniDiscTrackReader(MiniDiscImage image, List<Utoc.Part> parts, int readAheadBuffers, int batchClusters) {
+        this(image, partRanges(image, parts), readAheadBuffers, batchClusters);
+    }
+
+    private MiniDiscTrackReader(MiniDiscImage image, long[][] ranges, int readAheadBuffers, int batchClusters) {
+        this.image = image;
+        if (readAheadBuffers < 1) {
+            throw new IllegalArgumentException("readAheadBuffers must be >= 1: " + readAheadBuffers);
+        }
+        if (batchClusters < 1 || (long) batchClusters * CLUSTER_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("batchClusters out of range: " + batchClusters);
+        }
+        this.batchClusters = batchClusters;
+        this.rangeStart = ranges[0];
+        this.rangeEnd = ranges[1];
+        long sgs = 0;
+        for (int i = 0; i < rangeStart.length; i++) sgs += rangeEnd[i] - rangeStart[i];
+        this.soundGroupCount = sgs;
+
+        this.free = new ArrayBlockingQueue<>(readAheadBuffers + 1); // + END (close)
+        this.filled = new ArrayBlockingQueue<>(readAheadBuffers + 1); // + END
+        for (int i = 0; i < readAheadBuffers; i++) {
+            free.add(new Chunk(new byte[batchClusters * CLUSTER_BYTES]));
+        }
+        this.readAhead = new Thread(this::readAheadLoop, "md-track-read-ahead");
+        this.readAhead.setDaemon(true);
+        this.readAhead.start();
+    }
+
+    private static long[][] clusterRange(MiniDiscImage image, int firstCluster, int clusterCount) {
+        Objects.requireNonNull(image, "image");
+        if (clusterCount < 0 || firstCluster < 0 || (long) firstCluster + clusterCount > image.nbOfClusters()) {
+            throw new IllegalArgumentException("Cluster range out of image: " + firstCluster + " + " + clusterCount);
+        }
+        if (clusterCount == 0) return new long[2][0];
+        long start = (long) firstCluster * SOUND_GROUPS_PER_CLUSTER;
+        return new long[][]{{start}, {start + (long) clusterCount * SOUND_GROUPS_PER_CLUSTER}};
+    }
+
+    private static long[][] partRanges(MiniDiscImage image, List<Utoc.Part> parts) {
+        Objects.requireNonNull(image, "image");
+        Objects.requireNonNull(parts, "parts");
+        long[][] ranges = new long[2][parts.size()];
+        for (int i = 0; i < parts.size(); i++) {
+            Utoc.Part part = parts.get(i);
+            if (part.lastCluster() >= image.nbOfClusters()) {
+                throw new IllegalArgumentException("Part out of image: " + part);
+            }
+            ranges[0][i] = part.start().soundGroupIndex();
+            ranges[1][i] = part.end().soundGroupIndex() + 1;
+        }
+        return ranges;
+    }
+
+    /**
+     * Frames readFrames will give in total (sound groups x 512, minus the codec delay).
+     */
+    public long frameCount() {
+        return Math.max(0, soundGroupCount * FRAMES_PER_SOUNDGROUP - Atrac1Decoder.CODEC_DELAY_SAMPLES);
+    }
+
+    /**
+     * @param dst interleaved stereo [L,R,L,R,...], filled with up to dst.length / 2 frames
+     */
+    @Override
+    public int readFrames(short[] dst) throws IOException {
+        Objects.requireNonNull(dst, "dst");
+        if (dst.length < 2) throw new IllegalArgumentException("dst must hold at least one frame");
+        if (closed) throw new IOException("Track reader is closed");
+
+        int maxFrames = dst.length / 2;
+        int frames = 0;
+        while (frames < maxFrames) {
+            if (soundGroupFrame == FRAMES_PER_SOUNDGROUP && !decodeNextSoundGroup()) break;
+
+            if (framesToSkip > 0) {
+                int skip = Math.min(framesToSkip, FRAMES_PER_SOUNDGROUP - soundGroupFrame);
+                soundGroupFrame += skip;
+                framesToSkip -= skip;
+                continue;
+            }
+
+            int n = Math.min(maxFrames - frames, FRAMES_PER_SOUNDGROUP - soundGroupFrame);
+            System.arraycopy(soundGroupPcm, soundGroupFrame * 2, dst, frames * 2, n * 2);
+            soundGroupFrame += n;
+            frames += n;
+        }
+        return frames == 0 && eof ? -1 : frames;
+    }
+
+    /**
+     * @return false at the end of the track
+     */
+    private boolean decodeNextSoundGroup() throws IOException {
+        if (chunk != null && nextSoundGroup == chunk.sgTo) {
+            free.add(chunk);
+            chunk = null;
+        }
+        if (chunk == null) {
+            if (eof) return false;
+            Chunk next = takeFilled();
+            if (next == END) {
+                eof = true;
+                Throwable t = failure;
+                if (t != null) throw new IOException("Cluster read-ahead failed", t);
+                return false;
+            }
+            chunk = next;
+            nextSoundGroup = chunk.sgFrom;
+        }
+
+        int sg = nextSoundGroup++;
+        int c = sg / SOUND_GROUPS_PER_CLUSTER;
+        int g = sg % SOUND_GROUPS_PER_CLUSTER;
+        try {
+            left.decode(chunk.data, soundUnitOffset(c, 2 * g), soundGroupPcm, 0, 2);
+            right.decode(chunk.data, soundUnitOffset(c, 2 * g + 1), soundGroupPcm, 1, 2);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt sound group " + g + " in cluster " + (chunk.firstCluster + c), e);
+        }
+        soundGroupFrame = 0;
+        return true;
+    }
+
+    private static int soundUnitOffset(int clusterInChunk, int soundUnit) {
+        return clusterInChunk * CLUSTER_BYTES
+                + (soundUnit / SOUND_UNITS_PER_SECTOR) * SECTOR_BYTES
+                + MiniDiscSector.AUDIO_BLOCK_OFFSET
+                + (soundUnit % SOUND_UNITS_PER_SECTOR) * Atrac1.SOUND_UNIT_BYTES;
+    }
+
+    private Chunk takeFilled() throws IOException {
+        try {
+            return filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for cluster read-ahead");
+        }
+    }
+
+    /**
+     * Each part is cut in buffers of at most batchClusters clusters; the sound groups of the part
+     * in a buffer are [sgFrom, sgTo), counted from the buffer's first cluster.
+     */
+    private void readAheadLoop() {
+        try {
+            for (int r = 0; r < rangeStart.length; r++) {
+                long sg = rangeStart[r];
+                while (sg < rangeEnd[r]) {
+                    Chunk buf = free.take();
+                    if (buf == END) return; // closed
+                    int first = (int) (sg / SOUND_GROUPS_PER_CLUSTER);
+                    long base = (long) first * SOUND_GROUPS_PER_CLUSTER;
+                    long end = Math.min(rangeEnd[r], base + (long) batchClusters * SOUND_GROUPS_PER_CLUSTER);
+                    int clusters = (int) ((end - base + SOUND_GROUPS_PER_CLUSTER - 1) / SOUND_GROUPS_PER_CLUSTER);
+                    image.readClusters(first, clusters, buf.data);
+                    buf.firstCluster = first;
+                    buf.sgFrom = (int) (sg - base);
+                    buf.sgTo = (int) (end - base);
+                    filled.add(buf);
+                    sg = end;
+                }
+            }
+        } catch (Throwable t) {
+            failure = t;
+        }
+        filled.add(END);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        // no interrupt: it would close a FileChannel in the middle of a read
+        free.add(END);
+        try {
+            readAhead.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while stopping cluster read-ahead");
+        }
+    }
+
+    /**
+     * Ring buffer: batchClusters clusters read in one call + the part's sound groups in them.
+     */
+    private static final class Chunk {
+        final byte[] data;
+        int firstCluster;
+        int sgFrom;
+        int sgTo;
+
+        Chunk(byte[] data) {
+            this.data = data;
+        }
+    }
+}
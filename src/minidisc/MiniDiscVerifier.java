@@ -0,0 +1,249 @@
+package minidisc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+import static minidisc.MiniDiscFormat.SECTORS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+
+/**
+ * Whole-image structure check, in parallel.
+ * <p>
+ * The image is cut in ranges of RANGE_CLUSTERS clusters; 'parallelism' workers take the next range,
+ * read it with a single readClusters and check each sector:
+ * - sync pattern
+ * - header address: cluster (BE16) + sector address byte (SectorRole.toSectorAddress)
+ * - mode byte (MiniDiscSectorMode.MINI_DISC)
+ * - program area DATA sectors: the separator before the Audio Block is 4x00 or the sector's EDC
+ *   (MiniDiscEdc, checked in bulk over the range buffer)
+ * - UTOC sectors: EDC in the spare tail, when present (MiniDiscEdc.checkToc)
+ * Sectors whose 16 header bytes are all zero have never been written: counted as unrecorded, not checked.
+ * Headers are decoded in place through one MiniDiscSectorView per worker (no per-sector allocation).
+ * Each worker fills its own partial report; they are merged at the end (issues sorted by address,
+ * at most MAX_REPORTED_ISSUES kept, counts always complete).
+ * <p>
+ * Only readClusters is called, from several threads at once: FileMiniDiscImage (positional reads)
+ * and MappedMiniDiscImage (absolute gets) support it.
+ */
+public final class MiniDiscVerifier {
+
+    public static final int RANGE_CLUSTERS = 32;
+    public static final int MAX_REPORTED_ISSUES = 1000;
+
+    private static final byte[] SECTOR_ADDRESS_BYTES = new byte[SECTORS_PER_CLUSTER];
+
+    static {
+        for (int s = 0; s < SECTORS_PER_CLUSTER; s++) {
+            SECTOR_ADDRESS_BYTES[s] = SectorRole.fromSectorIndex(s).toSectorAddress(s);
+        }
+    }
+
+    private final MiniDiscImage image;
+    private final MiniDiscDiscType type;
+    private final int parallelism;
+
+    public MiniDiscVerifier(MiniDiscImage image, MiniDiscDiscType type) {
+        this(image, type, Runtime.getRuntime().availableProcessors());
+    }
+
+    public MiniDiscVerifier(MiniDiscImage image, MiniDiscDiscType type, int parallelism) {
+        this.image = Objects.requireNonNull(image, "image");
+        this.type = Objects.requireNonNull(type, "type");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    public enum Kind {
+        BAD_SYNC,
+        BAD_ADDRESS,
+        BAD_MODE,
+        BAD_EDC,
+        BAD_LAYOUT
+    }
+
+    /**
+     * @param sector -1 for an image-level issue
+     */
+    public record Issue(int cluster, int sector, Kind kind, String detail) {
+        @Override
+        public String toString() {
+            return sector < 0
+                    ? kind + ": " + detail
+                    : String.format("cluster 0x%04X sector %2d %s: %s", cluster, sector, kind, detail);
+        }
+    }
+
+    /**
+     * @param sectorsWithEdc audio and UTOC sectors whose EDC was checked (matching or not)
+     */
+    public record Report(int clustersChecked, long sectorsChecked, long sectorsUnrecorded, long sectorsWithEdc,
+                         Map<Kind, Long> issueCounts, List<Issue> issues) {
+
+        public long issueCount() {
+            long n = 0;
+            for (long c : issueCounts.values()) n += c;
+            return n;
+        }
+
+        public boolean isClean() {
+            return issueCount() == 0;
+        }
+    }
+
+    public Report verify() throws IOException {
+        int clusters = image.nbOfClusters();
+        Partial total = new Partial();
+        if (clusters != type.totalClusters()) {
+            total.add(new Issue(0, -1, Kind.BAD_LAYOUT,
+                    "image has " + clusters + " clusters, " + type + " layout needs " + type.totalClusters()));
+        }
+
+        int ranges = (clusters + RANGE_CLUSTERS - 1) / RANGE_CLUSTERS;
+        int workers = Math.min(parallelism, ranges);
+        AtomicInteger nextRange = new AtomicInteger();
+        List<Partial> partials = new ArrayList<>();
+
+        if (workers <= 1) {
+            partials.add(scan(nextRange, ranges));
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "md-verify");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<Partial>> futures = new ArrayList<>();
+                for (int w = 0; w < workers; w++) {
+                    futures.add(pool.submit(() -> scan(nextRange, ranges)));
+                }
+                for (Future<Partial> f : futures) {
+                    partials.add(f.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Verification interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException io) throw io;
+                if (cause instanceof RuntimeException re) throw re;
+                throw new IOException(cause);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        for (Partial p : partials) total.merge(p);
+        total.issues.sort(Comparator.comparingInt(Issue::cluster).thenComparingInt(Issue::sector));
+        List<Issue> kept = total.issues.size() > MAX_REPORTED_ISSUES
+                ? new ArrayList<>(total.issues.subList(0, MAX_REPORTED_ISSUES)) : total.issues;
+        return new Report(clusters, total.sectorsChecked, total.sectorsUnrecorded, total.sectorsWithEdc,
+                Collections.unmodifiableMap(total.counts), Collections.unmodifiableList(kept));
+    }
+
+    /**
+     * Worker loop: takes ranges until there are none left.
+     */
+    private Partial scan(AtomicInteger nextRange, int ranges) throws IOException {
+        Partial p = new Partial();
+        byte[] buf = new byte[RANGE_CLUSTERS * CLUSTER_BYTES];
+        MiniDiscSectorView view = new MiniDiscSectorView();
+        int total = image.nbOfClusters();
+        for (int r = nextRange.getAndIncrement(); r < ranges; r = nextRange.getAndIncrement()) {
+            int first = r * RANGE_CLUSTERS;
+            int count = Math.min(RANGE_CLUSTERS, total - first);
+            image.readClusters(first, count, buf);
+            for (int c = 0; c < count; c++) {
+                checkCluster(first + c, buf, c * CLUSTER_BYTES, view, p);
+            }
+            checkEdc(first, count, buf, p);
+        }
+        return p;
+    }
+
+    private void checkCluster(int cluster, byte[] buf, int offset, MiniDiscSectorView view, Partial p) {
+        for (int s = 0; s < SECTORS_PER_CLUSTER; s++) {
+            view.wrap(buf, offset + s * SECTOR_BYTES);
+            if (view.isUnrecorded()) {
+                p.sectorsUnrecorded++;
+                continue;
+            }
+            p.sectorsChecked++;
+
+            if (!view.hasDefaultSync()) {
+                p.add(new Issue(cluster, s, Kind.BAD_SYNC, "sync pattern not found"));
+            }
+            int headerCluster = view.clusterIndex();
+            byte sectorAddress = view.sectorAddressByte();
+            if (headerCluster != cluster || sectorAddress != SECTOR_ADDRESS_BYTES[s]) {
+                p.add(new Issue(cluster, s, Kind.BAD_ADDRESS, String.format("header says cluster 0x%04X sector 0x%02X, expected 0x%04X / 0x%02X",
+                        headerCluster, sectorAddress & 0xFF, cluster, SECTOR_ADDRESS_BYTES[s] & 0xFF)));
+            }
+            int mode = view.modeCode();
+            if (mode != MiniDiscSectorMode.MINI_DISC.code()) {
+                p.add(new Issue(cluster, s, Kind.BAD_MODE, "mode " + mode + (mode > 2 ? " (prohibited)" : "")));
+            }
+        }
+    }
+
+    /**
+     * UTOC sectors + program area clusters of the range buffer [first, first + count).
+     */
+    private void checkEdc(int first, int count, byte[] buf, Partial p) {
+        int utoc = MiniDiscLayout.UTOC_START;
+        if (utoc >= first && utoc < first + count) {
+            for (int s = 0; s < Utoc.SECTOR_COUNT; s++) {
+                int o = (utoc - first) * CLUSTER_BYTES + s * SECTOR_BYTES;
+                int stored = MiniDiscEdc.storedToc(buf, o);
+                if (stored == 0) continue;
+                p.sectorsWithEdc++;
+                int computed = MiniDiscEdc.computeToc(buf, o);
+                if (computed != stored) {
+                    p.add(new Issue(utoc, s, Kind.BAD_EDC, String.format("EDC 0x%08X stored, 0x%08X computed", stored, computed)));
+                }
+            }
+        }
+
+        int from = Math.max(first, MiniDiscLayout.PROGRAM_START);
+        int to = Math.min(first + count, type.programEndExclusive());
+        if (from >= to) return;
+        p.sectorsWithEdc += MiniDiscEdc.checkClusters(buf, (from - first) * CLUSTER_BYTES, to - from,
+                (c, s, stored, computed) -> p.add(new Issue(from + c, s, Kind.BAD_EDC,
+                        String.format("EDC 0x%08X stored, 0x%08X computed", stored, computed))));
+    }
+
+    /**
+     * Per-worker counters + issues (no sharing while scanning).
+     */
+    private static final class Partial {
+        long sectorsChecked;
+        long sectorsUnrecorded;
+        long sectorsWithEdc;
+        final EnumMap<Kind, Long> counts = new EnumMap<>(Kind.class);
+        final List<Issue> issues = new ArrayList<>();
+
+        void add(Issue issue) {
+            counts.merge(issue.kind(), 1L, Long::sum);
+            if (issues.size() < MAX_REPORTED_ISSUES) issues.add(issue);
+        }
+
+        void merge(Partial other) {
+            sectorsChecked += other.sectorsChecked;
+            sectorsUnrecorded += other.sectorsUnrecorded;
+            sectorsWithEdc += other.sectorsWithEdc;
+            other.counts.forEach((k, n) -> counts.merge(k, n, Long::sum));
+            issues.addAll(other.issues);
+        }
+    }
+}
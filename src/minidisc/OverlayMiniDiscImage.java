@@ -0,0 +1,290 @@
+package minidisc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static minidisc.MiniDiscFormat.CLUSTER_BYTES;
+import static minidisc.MiniDiscFormat.SECTORS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SECTOR_BYTES;
+
+/**
+ * Copy-on-write image: a base image that is only read + an overlay file holding the sectors written since.
+ * <p>
+ * Overlay file: 16-byte header (magic "MDOV", version, nbOfClusters) then one record per written sector,
+ * in the order sectors were first written: sector number (int, cluster * 36 + sector) + 2352 bytes.
+ * A sector written again is overwritten in its record. The index (sector number -> record) is kept in
+ * memory and rebuilt from the record headers by open().
+ * <p>
+ * Reads: base range in one readClusters, then overlaid sectors patched over it.
+ * Writes: only the overlay; records appended for a whole cluster go out in one write.
+ * commit() merges the overlay into the base (full clusters with writeCluster), discard() drops it.
+ * <p>
+ * The base is not owned: close() closes the overlay file only, several overlays may share one base.
+ * Single thread for writes; concurrent readClusters are fine when the base supports them.
+ */
+public final class OverlayMiniDiscImage implements MiniDiscImage {
+
+    private static final int MAGIC = 0x4D444F56; // "MDOV"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 4;
+    private static final int RECORD_BYTES = RECORD_HEADER_BYTES + SECTOR_BYTES;
+
+    private final MiniDiscImage base;
+    private final FileChannel overlay;
+    private final int nbOfClusters;
+    private final int[] recordOf;            // sector number -> record index, -1: base
+    private final byte[] overlaidInCluster;  // overlaid sectors per cluster, 0..36
+    private final byte[] staging = new byte[SECTORS_PER_CLUSTER * RECORD_BYTES];
+    private int records;
+
+    private OverlayMiniDiscImage(MiniDiscImage base, FileChannel overlay) {
+        this.base = base;
+        this.overlay = overlay;
+        this.nbOfClusters = base.nbOfClusters();
+        this.recordOf = new int[nbOfClusters * SECTORS_PER_CLUSTER];
+        this.overlaidInCluster = new byte[nbOfClusters];
+        Arrays.fill(recordOf, -1);
+    }
+
+    /**
+     * New, empty overlay (an existing file is truncated).
+     */
+    public static OverlayMiniDiscImage create(MiniDiscImage base, Path overlayFile) throws IOException {
+        Objects.requireNonNull(base, "base");
+        FileChannel ch = FileChannel.open(overlayFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        OverlayMiniDiscImage img = new OverlayMiniDiscImage(base, ch);
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(img.nbOfClusters).putInt(0).flip();
+        try {
+            writeFully(ch, header, 0L);
+        } catch (IOException e) {
+            ch.close();
+            throw e;
+        }
+        return img;
+    }
+
+    /**
+     * Reopens an overlay written by create() over the same base. A torn last record is dropped.
+     */
+    public static OverlayMiniDiscImage open(MiniDiscImage base, Path overlayFile) throws IOException {
+        Objects.requireNonNull(base, "base");
+        FileChannel ch = FileChannel.open(overlayFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            OverlayMiniDiscImage img = new OverlayMiniDiscImage(base, ch);
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+            readFully(ch, header, 0L);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not an overlay file: " + overlayFile);
+            }
+            if (header.getInt(8) != img.nbOfClusters) {
+                throw new IOException("Overlay made for " + header.getInt(8) + " clusters, base has " + img.nbOfClusters);
+            }
+            long complete = (ch.size() - FILE_HEADER_BYTES) / RECORD_BYTES;
+            ByteBuffer number = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+            for (int r = 0; r < complete; r++) {
+                number.clear();
+                readFully(ch, number, recordPos(r));
+                int n = number.getInt(0);
+                if (n < 0 || n >= img.recordOf.length || img.recordOf[n] >= 0) {
+                    throw new IOException("Corrupt overlay record " + r + ": sector number " + n);
+                }
+                img.recordOf[n] = r;
+                img.overlaidInCluster[n / SECTORS_PER_CLUSTER]++;
+            }
+            img.records = (int) complete;
+            ch.truncate(recordPos(img.records));
+            return img;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int nbOfClusters() {
+        return nbOfClusters;
+    }
+
+    /**
+     * Sectors currently held by the overlay.
+     */
+    public int overlaidSectors() {
+        return records;
+    }
+
+    @Override
+    public void readSector(int clusterIndex, int sectorIndex, byte[] out2352) throws IOException {
+        validateAddress(clusterIndex, sectorIndex);
+        checkSectorBuffer(out2352, "out2352");
+        int r = recordOf[clusterIndex * SECTORS_PER_CLUSTER + sectorIndex];
+        if (r < 0) {
+            base.readSector(clusterIndex, sectorIndex, out2352);
+        } else {
+            readFully(overlay, ByteBuffer.wrap(out2352), recordPos(r) + RECORD_HEADER_BYTES);
+        }
+    }
+
+    @Override
+    public void writeSector(int clusterIndex, int sectorIndex, byte[] in2352) throws IOException {
+        validateAddress(clusterIndex, sectorIndex);
+        checkSectorBuffer(in2352, "in2352");
+        writeSectors(clusterIndex, sectorIndex, 1, in2352, 0);
+    }
+
+    @Override
+    public void readClusters(int firstClusterIndex, int clusterCount, byte[] out) throws IOException {
+        MiniDiscImage.checkClusterRange(this, firstClusterIndex, clusterCount, out, "out");
+        base.readClusters(firstClusterIndex, clusterCount, out);
+        for (int c = 0; c < clusterCount; c++) {
+            int cluster = firstClusterIndex + c;
+            if (overlaidInCluster[cluster] == 0) continue;
+            for (int s = 0; s < SECTORS_PER_CLUSTER; s++) {
+                int r = recordOf[cluster * SECTORS_PER_CLUSTER + s];
+                if (r < 0) continue;
+                readFully(overlay, ByteBuffer.wrap(out, c * CLUSTER_BYTES + s * SECTOR_BYTES, SECTOR_BYTES),
+                        recordPos(r) + RECORD_HEADER_BYTES);
+            }
+        }
+    }
+
+    @Override
+    public void writeClusters(int firstClusterIndex, int clusterCount, byte[] in) throws IOException {
+        MiniDiscImage.checkClusterRange(this, firstClusterIndex, clusterCount, in, "in");
+        for (int c = 0; c < clusterCount; c++) {
+            writeSectors(firstClusterIndex + c, 0, SECTORS_PER_CLUSTER, in, c * CLUSTER_BYTES);
+        }
+    }
+
+    /**
+     * Sectors first..first+count-1 of one cluster: records whose indexes follow each other are written
+     * together (a cluster written for the first time = 1 write).
+     */
+    private void writeSectors(int cluster, int firstSector, int count, byte[] src, int srcOffset) throws IOException {
+        int runFirstRecord = -1;
+        int runLen = 0;
+        for (int i = 0; i < count; i++) {
+            int n = cluster * SECTORS_PER_CLUSTER + firstSector + i;
+            int r = recordOf[n];
+            if (r < 0) {
+                r = records++;
+                recordOf[n] = r;
+                overlaidInCluster[cluster]++;
+            }
+            if (runLen > 0 && r != runFirstRecord + runLen) {
+                writeRun(runFirstRecord, runLen);
+                runLen = 0;
+            }
+            if (runLen == 0) runFirstRecord = r;
+            int o = runLen * RECORD_BYTES;
+            staging[o] = (byte) (n >>> 24);
+            staging[o + 1] = (byte) (n >>> 16);
+            staging[o + 2] = (byte) (n >>> 8);
+            staging[o + 3] = (byte) n;
+            System.arraycopy(src, srcOffset + i * SECTOR_BYTES, staging, o + RECORD_HEADER_BYTES, SECTOR_BYTES);
+            runLen++;
+        }
+        if (runLen > 0) writeRun(runFirstRecord, runLen);
+    }
+
+    private void writeRun(int firstRecord, int count) throws IOException {
+        writeFully(overlay, ByteBuffer.wrap(staging, 0, count * RECORD_BYTES), recordPos(firstRecord));
+    }
+
+    /**
+     * Merges the overlay into the base (fully overlaid clusters with one writeCluster), flushes the base,
+     * then empties the overlay.
+     */
+    public void commit() throws IOException {
+        if (records == 0) return;
+        byte[] cluster = new byte[CLUSTER_BYTES];
+        byte[] sector = new byte[SECTOR_BYTES];
+        for (int c = 0; c < nbOfClusters; c++) {
+            int overlaid = overlaidInCluster[c];
+            if (overlaid == 0) continue;
+            if (overlaid == SECTORS_PER_CLUSTER) {
+                readClusters(c, 1, cluster);
+                base.writeCluster(c, cluster);
+                continue;
+            }
+            for (int s = 0; s < SECTORS_PER_CLUSTER; s++) {
+                int r = recordOf[c * SECTORS_PER_CLUSTER + s];
+                if (r < 0) continue;
+                readFully(overlay, ByteBuffer.wrap(sector), recordPos(r) + RECORD_HEADER_BYTES);
+                base.writeSector(c, s, sector);
+            }
+        }
+        base.flush();
+        discard();
+    }
+
+    /**
+     * Drops every overlaid sector: reads see the base again.
+     */
+    public void discard() throws IOException {
+        overlay.truncate(FILE_HEADER_BYTES);
+        Arrays.fill(recordOf, -1);
+        Arrays.fill(overlaidInCluster, (byte) 0);
+        records = 0;
+    }
+
+    /**
+     * Forces the overlay file (the base is not written).
+     */
+    @Override
+    public void flush() throws IOException {
+        overlay.force(false);
+    }
+
+    /**
+     * Closes the overlay file; the base stays open.
+     */
+    @Override
+    public void close() throws IOException {
+        overlay.close();
+    }
+
+    private static long recordPos(int record) {
+        return FILE_HEADER_BYTES + (long) record * RECORD_BYTES;
+    }
+
+    private void validateAddress(int clusterIndex, int sectorIndex) {
+        if (clusterIndex < 0 || clusterIndex >= nbOfClusters) {
+            throw new IllegalArgumentException("clusterIndex out of range: " + clusterIndex);
+        }
+        if (sectorIndex < 0 || sectorIndex >= SECTORS_PER_CLUSTER) {
+            throw new IllegalArgumentException("sectorIndex out of range: " + sectorIndex);
+        }
+    }
+
+    private static void checkSectorBuffer(byte[] b, String name) {
+        Objects.requireNonNull(b, name);
+        if (b.length != SECTOR_BYTES) {
+            throw new IllegalArgumentException(name + " must be exactly " + SECTOR_BYTES + " bytes");
+        }
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer dst, long pos) throws IOException {
+        long p = pos;
+        while (dst.hasRemaining()) {
+            int n = ch.read(dst, p);
+            if (n < 0) throw new EOFException("Unexpected end of overlay at " + p);
+            p += n;
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer src, long pos) throws IOException {
+        long p = pos;
+        while (src.hasRemaining()) {
+            p += ch.write(src, p);
+        }
+    }
+}
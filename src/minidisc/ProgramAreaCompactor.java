@@ -0,0 +1,165 @@
+package minidisc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static minidisc.MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER;
+import static minidisc.MiniDiscFormat.SOUND_GROUP_BYTES;
+
+/**
+ * Defragmentation of the program area: every track made of several parts is copied, sound group
+ * after sound group, to a contiguous run of free clusters, and becomes a single part.
+ * <p>
+ * One pass over the tracks, one UTOC commit per moved track, always after the data:
+ * 1. target run = best fit among the clusters free in the committed UTOC (nothing live is overwritten)
+ * 2. copy through MdSoundGroupReader / MdSoundGroupWriter in batches of batchClusters clusters, flush
+ * 3. UTOC: track = 1 part on the target run, old clusters added to the free area, commit, flush
+ * A crash leaves either the old or the new track, never a mix.
+ * Memory: 2 batches + 1 cluster of sound groups.
+ * <p>
+ * Parts that already follow each other are merged in the UTOC without copying. A track that fits in no
+ * free run is left as it is (see Result.tracksSkipped). The free area is rewritten as whole free clusters.
+ * <p>
+ * EDC (MiniDiscEdc): a moved track keeps it if the sector holding its first sound group carries one;
+ * it is computed afresh for the new sectors (the source sectors are not checked, use MiniDiscVerifier first).
+ */
+public final class ProgramAreaCompactor {
+
+    public static final int DEFAULT_BATCH_CLUSTERS = 32; // 2.6 MiB per buffer
+
+    private final MiniDiscImage image;
+    private final MiniDiscDiscType type;
+    private final UtocStore utocStore;
+    private final int batchClusters;
+
+    public ProgramAreaCompactor(MiniDiscImage image, MiniDiscDiscType type, UtocStore utocStore) {
+        this(image, type, utocStore, DEFAULT_BATCH_CLUSTERS);
+    }
+
+    public ProgramAreaCompactor(MiniDiscImage image, MiniDiscDiscType type, UtocStore utocStore, int batchClusters) {
+        this.image = Objects.requireNonNull(image, "image");
+        this.type = Objects.requireNonNull(type, "type");
+        this.utocStore = Objects.requireNonNull(utocStore, "utocStore");
+        if (batchClusters < 1) throw new IllegalArgumentException("batchClusters must be >= 1: " + batchClusters);
+        this.batchClusters = batchClusters;
+    }
+
+    public record Result(int tracksMoved, int tracksMerged, int tracksSkipped, long clustersCopied) {
+    }
+
+    public Result compact() throws IOException {
+        Utoc utoc = utocStore.read(image);
+        BitmapClusterAllocator allocator = BitmapClusterAllocator.fromUtoc(utoc, type);
+        int programStart = MiniDiscLayout.PROGRAM_START;
+        int[] refs = clusterRefs(utoc, programStart);
+
+        int moved = 0, merged = 0, skipped = 0;
+        long copied = 0;
+        for (int tno = utoc.firstTrack(); tno <= utoc.lastTrack(); tno++) {
+            List<Utoc.Part> parts = utoc.trackParts(tno);
+            if (parts.size() <= 1) continue;
+
+            long soundGroups = 0;
+            boolean contiguous = true;
+            for (int i = 0; i < parts.size(); i++) {
+                soundGroups += parts.get(i).soundGroupCount();
+                if (i > 0 && parts.get(i).start().soundGroupIndex() != parts.get(i - 1).end().soundGroupIndex() + 1) {
+                    contiguous = false;
+                }
+            }
+            int mode = parts.get(0).mode();
+
+            if (contiguous) {
+                Utoc next = utoc.copy();
+                next.setTrackParts(tno, List.of(new Utoc.Part(parts.get(0).start(), parts.get(parts.size() - 1).end(), mode)));
+                utocStore.write(image, next);
+                utoc = next;
+                merged++;
+                continue;
+            }
+
+            int clusters = (int) ((soundGroups + SOUND_GROUPS_PER_CLUSTER - 1) / SOUND_GROUPS_PER_CLUSTER);
+            int target;
+            try {
+                target = allocator.allocateContiguous(clusters);
+            } catch (IOException noRoom) {
+                skipped++;
+                continue;
+            }
+
+            copyTrack(parts, target, clusters);
+            image.flush();
+
+            // old clusters no other part uses go back to the free area
+            List<int[]> released = new ArrayList<>();
+            for (Utoc.Part p : parts) {
+                for (int c = p.firstCluster(); c <= p.lastCluster(); c++) {
+                    int i = c - programStart;
+                    if (i < 0 || i >= refs.length || refs[i] == 0) continue;
+                    if (--refs[i] > 0 || allocator.isFree(c)) continue;
+                    int[] last = released.isEmpty() ? null : released.get(released.size() - 1);
+                    if (last != null && last[0] + last[1] == c) last[1]++;
+                    else released.add(new int[]{c, 1});
+                }
+            }
+            for (int c = target; c < target + clusters; c++) refs[c - programStart]++;
+            for (int[] r : released) allocator.freeRange(r[0], r[1]);
+
+            Utoc next = utoc.copy();
+            Utoc.Ads end = Utoc.Ads.ofSoundGroupIndex((long) target * SOUND_GROUPS_PER_CLUSTER + soundGroups - 1);
+            next.setTrackParts(tno, List.of(new Utoc.Part(Utoc.Ads.clusterStart(target), end, mode)));
+            next.setFreeParts(allocator.freeParts(0));
+            utocStore.write(image, next);
+            image.flush();
+            utoc = next;
+            moved++;
+            copied += clusters;
+        }
+        return new Result(moved, merged, skipped, copied);
+    }
+
+    private void copyTrack(List<Utoc.Part> parts, int target, int clusters) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(SOUND_GROUPS_PER_CLUSTER * SOUND_GROUP_BYTES);
+        try (MdSoundGroupWriter out = new MdSoundGroupWriter(image, target, clusters, batchClusters)) {
+            out.setEdc(carriesEdc(parts.get(0)));
+            for (Utoc.Part p : parts) {
+                MdSoundGroupReader in = new MdSoundGroupReader(image, p.firstCluster(),
+                        p.start().soundGroupInCluster(), p.soundGroupCount(), batchClusters);
+                while (true) {
+                    buf.clear();
+                    if (in.readSoundGroups(buf) < 0) break;
+                    buf.flip();
+                    out.writeSoundGroups(buf);
+                }
+            }
+        }
+    }
+
+    /**
+     * true if the sector holding the first sound group of the part has an EDC.
+     */
+    private boolean carriesEdc(Utoc.Part part) throws IOException {
+        byte[] raw = new byte[MiniDiscFormat.SECTOR_BYTES];
+        int sector = part.start().soundGroupInCluster() * SOUND_GROUP_BYTES / MiniDiscFormat.SECTOR_DATA_BYTES;
+        image.readSector(part.firstCluster(), sector, raw);
+        return MiniDiscEdc.stored(raw, 0) != 0;
+    }
+
+    /**
+     * Number of track parts touching each program cluster.
+     */
+    private int[] clusterRefs(Utoc utoc, int programStart) {
+        int[] refs = new int[type.programClusters()];
+        for (int tno = utoc.firstTrack(); tno <= utoc.lastTrack(); tno++) {
+            for (Utoc.Part p : utoc.trackParts(tno)) {
+                int first = Math.max(p.firstCluster(), programStart);
+                int last = Math.min(p.lastCluster(), programStart + refs.length - 1);
+                for (int c = first; c <= last; c++) refs[c - programStart]++;
+            }
+        }
+        return refs;
+    }
+}
@@ -58,4 +58,16 @@ public enum SectorRole {
             case SUBDATA -> (byte) 0xFF;
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Inverse of toSectorAddress.
+     *
+     * @return 0..35, or -1 if address is not a sector address byte
+     */
+    public static int sectorIndexFromAddress(byte address) {
+        int a = address & 0xFF;
+        if (a < 32) return a;
+        if (a >= 0xFC) return 32 + (a - 0xFC);
+        return -1;
+    }
+}
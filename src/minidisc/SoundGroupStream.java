@@ -1,6 +1,7 @@
 package minidisc;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * C’est le point critique : conversion sound groups 424 bytes ↔ payload sector data bytes (2332), avec le pattern 5,5 soundgroups/secteur.
@@ -16,4 +17,39 @@ public interface SoundGroupStream {
     void writeSoundGroup(byte[] sg424) throws IOException;
 
     int readSoundGroup(byte[] sg424) throws IOException; // returns -1 EOF
+
+    /**
+     * Bulk write: src.remaining() must be a multiple of 424 (e.g. a whole cluster, 176 sound groups).
+     * Consumes src.
+     */
+    default void writeSoundGroups(ByteBuffer src) throws IOException {
+        checkWholeSoundGroups(src);
+        byte[] sg = new byte[MiniDiscFormat.SOUND_GROUP_BYTES];
+        while (src.hasRemaining()) {
+            src.get(sg);
+            writeSoundGroup(sg);
+        }
+    }
+
+    /**
+     * Bulk read: fills dst with up to dst.remaining() / 424 sound groups.
+     *
+     * @return number of sound groups read, or -1 EOF
+     */
+    default int readSoundGroups(ByteBuffer dst) throws IOException {
+        byte[] sg = new byte[MiniDiscFormat.SOUND_GROUP_BYTES];
+        int count = 0;
+        while (dst.remaining() >= sg.length) {
+            if (readSoundGroup(sg) < 0) break;
+            dst.put(sg);
+            count++;
+        }
+        return count == 0 && dst.remaining() >= sg.length ? -1 : count;
+    }
+
+    static void checkWholeSoundGroups(ByteBuffer src) {
+        if (src.remaining() % MiniDiscFormat.SOUND_GROUP_BYTES != 0) {
+            throw new IllegalArgumentException("Not a whole number of sound groups: " + src.remaining() + " bytes");
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+package minidisc;
+
+import wav.WavPcmWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks of an image -> WAV files (44.1 kHz, 16-bit stereo).
+ * <p>
+ * Per track: UTOC parts -> MiniDiscTrackReader (batched readClusters, read-ahead thread, decode)
+ * -> WavPcmWriter, through one CHUNK_FRAMES buffer per worker: memory does not depend on track length.
+ * <p>
+ * extract(tracks, dir): 'parallelism' workers take the next track to do, like MiniDiscVerifier.
+ * A failing track does not stop the others: its Result holds the exception and its partial file is deleted.
+ * The image must support concurrent readClusters (FileMiniDiscImage, MappedMiniDiscImage).
+ */
+public final class TrackExtractor {
+
+    public static final int CHUNK_FRAMES = 16 * 1024;
+
+    private final MiniDiscImage image;
+    private final Utoc utoc;
+    private final int parallelism;
+
+    public TrackExtractor(MiniDiscImage image, Utoc utoc) {
+        this(image, utoc, Runtime.getRuntime().availableProcessors());
+    }
+
+    public TrackExtractor(MiniDiscImage image, Utoc utoc, int parallelism) {
+        this.image = Objects.requireNonNull(image, "image");
+        this.utoc = Objects.requireNonNull(utoc, "utoc");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1: " + parallelism);
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param failure null if the track was extracted
+     */
+    public record Result(int track, Path file, long frames, IOException failure) {
+    }
+
+    /**
+     * One track, on the caller's thread.
+     *
+     * @return frames written
+     */
+    public long extract(int tno, Path wav) throws IOException {
+        return extract(tno, wav, new short[CHUNK_FRAMES * 2]);
+    }
+
+    /**
+     * Every track of the UTOC into dir (created if needed), named by fileName().
+     */
+    public List<Result> extractAll(Path dir) throws IOException {
+        List<Integer> tracks = new ArrayList<>();
+        for (int tno = utoc.firstTrack(); tno <= utoc.lastTrack(); tno++) tracks.add(tno);
+        return extract(tracks, dir);
+    }
+
+    /**
+     * A track listed twice is extracted once (two workers would write the same file).
+     *
+     * @return one Result per track, in track order
+     */
+    public List<Result> extract(List<Integer> requested, Path dir) throws IOException {
+        Objects.requireNonNull(requested, "tracks");
+        List<Integer> tracks = List.copyOf(new LinkedHashSet<>(requested));
+        for (int tno : tracks) {
+            if (tno < utoc.firstTrack() || tno > utoc.lastTrack()) {
+                throw new IllegalArgumentException("No track " + tno + " (tracks " + utoc.firstTrack() + ".." + utoc.lastTrack() + ")");
+            }
+        }
+        Files.createDirectories(dir);
+
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(parallelism, tracks.size());
+        List<Result> results = new ArrayList<>();
+        if (workers <= 1) {
+            results.addAll(work(tracks, dir, next));
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "md-extract");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<List<Result>>> futures = new ArrayList<>();
+                for (int w = 0; w < workers; w++) {
+                    futures.add(pool.submit(() -> work(tracks, dir, next)));
+                }
+                for (Future<List<Result>> f : futures) {
+                    results.addAll(f.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Extraction interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException re) throw re;
+                throw new IOException(cause);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        results.sort(Comparator.comparingInt(Result::track));
+        return results;
+    }
+
+    /**
+     * "NN - title.wav", or "NN.wav" without a title; characters not allowed in file names become '_'.
+     */
+    public static String fileName(int tno, String title) {
+        StringBuilder sb = new StringBuilder(String.format("%02d", tno));
+        if (title != null && !title.isBlank()) {
+            sb.append(" - ");
+            for (char ch : title.strip().toCharArray()) {
+                sb.append(ch < 0x20 || "\\/:*?\"<>|".indexOf(ch) >= 0 ? '_' : ch);
+            }
+        }
+        return sb.append(".wav").toString();
+    }
+
+    /**
+     * Worker loop: takes tracks until there are none left, with a single PCM buffer.
+     */
+    private List<Result> work(List<Integer> tracks, Path dir, AtomicInteger next) {
+        List<Result> results = new ArrayList<>();
+        short[] pcm = new short[CHUNK_FRAMES * 2];
+        for (int i = next.getAndIncrement(); i < tracks.size(); i = next.getAndIncrement()) {
+            int tno = tracks.get(i);
+            Path wav = dir.resolve(fileName(tno, utoc.trackTitle(tno)));
+            try {
+                results.add(new Result(tno, wav, extract(tno, wav, pcm), null));
+            } catch (IOException | RuntimeException e) {
+                try {
+                    Files.deleteIfExists(wav);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                IOException failure = e instanceof IOException io ? io : new IOException("Track " + tno + ": " + e, e);
+                results.add(new Result(tno, wav, 0, failure));
+            }
+        }
+        return results;
+    }
+
+    private long extract(int tno, Path wav, short[] pcm) throws IOException {
+        List<Utoc.Part> parts = utoc.trackParts(tno);
+        try (MiniDiscTrackReader reader = new MiniDiscTrackReader(image, parts);
+             WavPcmWriter writer = new WavPcmWriter(wav, MiniDiscFormat.SAMPLE_RATE)) {
+            for (int n = reader.readFrames(pcm); n >= 0; n = reader.readFrames(pcm)) {
+                writer.writeFrames(pcm, 0, n);
+            }
+            return writer.framesWritten();
+        }
+    }
+}
@@ -1,6 +1,512 @@
 package minidisc;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static minidisc.MiniDiscSector.TOC_DATA_BYTES;
+import static minidisc.MiniDiscSector.TOC_DATA_OFFSET;
+
+/**
+ * UTOC (User TOC): where the tracks are, what is free, the titles.
+ * <p>
+ * Stored in the first sectors of cluster UTOC_START:
+ * - sector 0: parts table (255 slots: start ADS, mode, end ADS, link) + P-TNO, P-FRA, P-EMPTY, P-DFA
+ * - sector 1: titles (255 slots: 7 characters + link) + P-TNA, P-EMPTY
+ * - sectors 2..3: kept as read (recording dates, ...)
+ * A track, the free area and the defective area are chains of slots (link 0 = end of chain).
+ * <p>
+ * The model is backed by the sector data (2336 bytes after the 16-byte header):
+ * fields that are not modelled here are kept as they were read.
+ * Offsets below are relative to the start of the 2352-byte sector, as in the format documentation.
+ *
+ * @see <A href="https://www.minidisc.org/French_tech/section4.html">Structure des données sur le disque</A>
+ */
 public final class Utoc {
-    // tracks, start/end ADS, flags, etc.
-}
+    public static final int SECTOR_COUNT = 4;
+    public static final int MAX_TRACKS = 255;
+    public static final int TITLE_CHARS_PER_SLOT = 7;
+
+    /**
+     * Track mode as written by SP recorders: stereo audio, copy permitted.
+     */
+    public static final int MODE_AUDIO_STEREO = 0x06;
+
+    private static final int SLOTS = 256;        // slot 0 = "no slot"
+    private static final int SLOT_BYTES = 8;
+    private static final int PARTS_SECTOR = 0;
+    private static final int TITLES_SECTOR = 1;
+
+    // sector 0
+    private static final int FIRST_TNO = 0x1E;
+    private static final int LAST_TNO = 0x1F;
+    private static final int P_DFA = 0x2D;
+    private static final int P_EMPTY = 0x2E;
+    private static final int P_FRA = 0x2F;
+    private static final int P_TNO = 0x2F;       // + tno (1..255)
+    private static final int SLOT_TABLE = 0x128; // + 8 * slot (1..255)
+
+    // sector 1
+    private static final int TITLE_P_EMPTY = 0x2E;
+    private static final int P_TNA = 0x2F;       // + tno, 0 = disc title
+
+    private final byte[][] sectors;              // [SECTOR_COUNT][2336]
+
+    private Utoc(byte[][] sectors) {
+        this.sectors = sectors;
+    }
+
+    /**
+     * Empty disc: no track, the whole program area free, every slot in P-EMPTY.
+     */
+    public static Utoc blank(MiniDiscDiscType type) {
+        Objects.requireNonNull(type, "type");
+        byte[][] data = new byte[SECTOR_COUNT][TOC_DATA_BYTES];
+        Utoc utoc = new Utoc(data);
+        utoc.put8(PARTS_SECTOR, FIRST_TNO, 1);
+        utoc.put8(PARTS_SECTOR, LAST_TNO, 0);
+        for (int sector : new int[]{PARTS_SECTOR, TITLES_SECTOR}) {
+            int emptyHead = sector == PARTS_SECTOR ? P_EMPTY : TITLE_P_EMPTY;
+            utoc.put8(sector, emptyHead, 1);
+            for (int slot = 1; slot < SLOTS; slot++) {
+                utoc.setLink(sector, slot, slot + 1 < SLOTS ? slot + 1 : 0);
+            }
+        }
+        utoc.setFreeParts(List.of(Part.ofClusters(MiniDiscLayout.PROGRAM_START, type.programClusters(), 0)));
+        return utoc;
+    }
+
+    /**
+     * @param sectorData SECTOR_COUNT arrays of 2336 bytes (copied)
+     */
+    static Utoc fromSectorData(byte[][] sectorData) {
+        if (sectorData.length != SECTOR_COUNT) {
+            throw new IllegalArgumentException("UTOC must have " + SECTOR_COUNT + " sectors");
+        }
+        byte[][] copy = new byte[SECTOR_COUNT][];
+        for (int s = 0; s < SECTOR_COUNT; s++) {
+            if (sectorData[s].length != TOC_DATA_BYTES) {
+                throw new IllegalArgumentException("UTOC sector data must be exactly " + TOC_DATA_BYTES + " bytes");
+            }
+            copy[s] = sectorData[s].clone();
+        }
+        return new Utoc(copy);
+    }
+
+    /**
+     * Internal: the live sector data, do not mutate.
+     */
+    byte[] sectorData(int sector) {
+        return sectors[sector];
+    }
+
+    public Utoc copy() {
+        return fromSectorData(sectors);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Tracks
+    // ---------------------------------------------------------------------------------------------
+
+    public int firstTrack() {
+        return get8(PARTS_SECTOR, FIRST_TNO);
+    }
+
+    public int lastTrack() {
+        return get8(PARTS_SECTOR, LAST_TNO);
+    }
+
+    public int trackCount() {
+        return Math.max(0, lastTrack() - firstTrack() + 1);
+    }
+
+    /**
+     * Fragments of a track, in playback order.
+     */
+    public List<Part> trackParts(int tno) {
+        checkTrack(tno);
+        return parts(trackSlot(tno));
+    }
+
+    /**
+     * Appends a track made of these fragments.
+     *
+     * @return its track number
+     */
+    public int addTrack(List<Part> parts) {
+        int tno = lastTrack() + 1;
+        if (tno > MAX_TRACKS) throw new IllegalStateException("UTOC already has " + MAX_TRACKS + " tracks");
+        put8(PARTS_SECTOR, P_TNO + tno, buildPartChain(parts));
+        put8(PARTS_SECTOR, LAST_TNO, tno);
+        return tno;
+    }
+
+    /**
+     * Replaces the fragment list of a track (e.g. after its clusters moved).
+     */
+    public void setTrackParts(int tno, List<Part> parts) {
+        checkTrack(tno);
+        int old = trackSlot(tno);
+        checkRoomFor(PARTS_SECTOR, parts.size(), old);
+        releaseChain(PARTS_SECTOR, old);
+        put8(PARTS_SECTOR, P_TNO + tno, buildPartChain(parts));
+    }
+
+    /**
+     * Erases a track: its fragments go to the free area, next tracks are renumbered.
+     */
+    public void removeTrack(int tno) {
+        checkTrack(tno);
+        int head = trackSlot(tno);
+        if (head != 0) {
+            int[] slots = chain(PARTS_SECTOR, head);
+            setLink(PARTS_SECTOR, slots[slots.length - 1], freeSlot());
+            put8(PARTS_SECTOR, P_FRA, head);
+        }
+        releaseChain(TITLES_SECTOR, get8(TITLES_SECTOR, P_TNA + tno));
+
+        int last = lastTrack();
+        for (int t = tno; t < last; t++) {
+            put8(PARTS_SECTOR, P_TNO + t, get8(PARTS_SECTOR, P_TNO + t + 1));
+            put8(TITLES_SECTOR, P_TNA + t, get8(TITLES_SECTOR, P_TNA + t + 1));
+        }
+        put8(PARTS_SECTOR, P_TNO + last, 0);
+        put8(TITLES_SECTOR, P_TNA + last, 0);
+        put8(PARTS_SECTOR, LAST_TNO, last - 1);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Free / defective areas
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * Free area chain (P-FRA): recordable parts of the program area.
+     */
+    public List<Part> freeParts() {
+        return parts(freeSlot());
+    }
+
+    public void setFreeParts(List<Part> parts) {
+        int old = freeSlot();
+        checkRoomFor(PARTS_SECTOR, parts.size(), old);
+        releaseChain(PARTS_SECTOR, old);
+        put8(PARTS_SECTOR, P_FRA, buildPartChain(parts));
+    }
+
+    /**
+     * Defective area chain (P-DFA).
+     */
+    public List<Part> defectiveParts() {
+        return parts(get8(PARTS_SECTOR, P_DFA));
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Titles
+    // ---------------------------------------------------------------------------------------------
+
+    public String discTitle() {
+        return title(0);
+    }
+
+    public void setDiscTitle(String title) {
+        setTitle(0, title);
+    }
+
+    public String trackTitle(int tno) {
+        checkTrack(tno);
+        return title(tno);
+    }
+
+    /**
+     * @param title ISO-8859-1, null or "" to remove
+     */
+    public void setTrackTitle(int tno, String title) {
+        checkTrack(tno);
+        setTitle(tno, title);
+    }
+
+    private String title(int tno) {
+        int[] slots = chain(TITLES_SECTOR, get8(TITLES_SECTOR, P_TNA + tno));
+        byte[] text = new byte[slots.length * TITLE_CHARS_PER_SLOT];
+        for (int i = 0; i < slots.length; i++) {
+            System.arraycopy(sectors[TITLES_SECTOR], at(slotOffset(slots[i])), text, i * TITLE_CHARS_PER_SLOT, TITLE_CHARS_PER_SLOT);
+        }
+        int len = text.length;
+        while (len > 0 && text[len - 1] == 0) len--;
+        return new String(text, 0, len, StandardCharsets.ISO_8859_1);
+    }
+
+    private void setTitle(int tno, String title) {
+        byte[] text = title == null ? new byte[0] : title.getBytes(StandardCharsets.ISO_8859_1);
+        int needed = (text.length + TITLE_CHARS_PER_SLOT - 1) / TITLE_CHARS_PER_SLOT;
+        int old = get8(TITLES_SECTOR, P_TNA + tno);
+        checkRoomFor(TITLES_SECTOR, needed, old);
+        releaseChain(TITLES_SECTOR, old);
+
+        int head = 0;
+        int prev = 0;
+        for (int i = 0; i < needed; i++) {
+            int slot = takeEmptySlot(TITLES_SECTOR);
+            int off = at(slotOffset(slot));
+            Arrays.fill(sectors[TITLES_SECTOR], off, off + SLOT_BYTES, (byte) 0);
+            int n = Math.min(TITLE_CHARS_PER_SLOT, text.length - i * TITLE_CHARS_PER_SLOT);
+            System.arraycopy(text, i * TITLE_CHARS_PER_SLOT, sectors[TITLES_SECTOR], off, n);
+            if (prev == 0) head = slot;
+            else setLink(TITLES_SECTOR, prev, slot);
+            prev = slot;
+        }
+        put8(TITLES_SECTOR, P_TNA + tno, head);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Slot level (link pointers), for tools that check or repair the table
+    // ---------------------------------------------------------------------------------------------
+
+    public int trackSlot(int tno) {
+        checkTrack(tno);
+        return get8(PARTS_SECTOR, P_TNO + tno);
+    }
 
+    public int freeSlot() {
+        return get8(PARTS_SECTOR, P_FRA);
+    }
+
+    public int emptySlot() {
+        return get8(PARTS_SECTOR, P_EMPTY);
+    }
+
+    public int defectiveSlot() {
+        return get8(PARTS_SECTOR, P_DFA);
+    }
+
+    /**
+     * @param slot 1..255
+     */
+    public Part part(int slot) {
+        checkSlot(slot);
+        int off = slotOffset(slot);
+        return new Part(Ads.unpack(get24(PARTS_SECTOR, off)), Ads.unpack(get24(PARTS_SECTOR, off + 4)),
+                get8(PARTS_SECTOR, off + 3));
+    }
+
+    public int link(int slot) {
+        checkSlot(slot);
+        return get8(PARTS_SECTOR, slotOffset(slot) + 7);
+    }
+
+    private List<Part> parts(int head) {
+        int[] slots = chain(PARTS_SECTOR, head);
+        List<Part> parts = new ArrayList<>(slots.length);
+        for (int slot : slots) parts.add(part(slot));
+        return parts;
+    }
+
+    /**
+     * Slots of a chain, in order.
+     *
+     * @throws IllegalStateException on a loop (corrupt UTOC)
+     */
+    private int[] chain(int sector, int head) {
+        int[] slots = new int[SLOTS];
+        int n = 0;
+        for (int slot = head; slot != 0; slot = get8(sector, slotOffset(slot) + 7)) {
+            if (n == SLOTS - 1) throw new IllegalStateException("Loop in UTOC link chain from slot " + head);
+            slots[n++] = slot;
+        }
+        return Arrays.copyOf(slots, n);
+    }
+
+    private int buildPartChain(List<Part> parts) {
+        checkRoomFor(PARTS_SECTOR, parts.size(), 0);
+        int head = 0;
+        int prev = 0;
+        for (Part p : parts) {
+            Objects.requireNonNull(p, "part");
+            int slot = takeEmptySlot(PARTS_SECTOR);
+            int off = slotOffset(slot);
+            put24(PARTS_SECTOR, off, p.start().pack());
+            put8(PARTS_SECTOR, off + 3, p.mode());
+            put24(PARTS_SECTOR, off + 4, p.end().pack());
+            setLink(PARTS_SECTOR, slot, 0);
+            if (prev == 0) head = slot;
+            else setLink(PARTS_SECTOR, prev, slot);
+            prev = slot;
+        }
+        return head;
+    }
+
+    private int takeEmptySlot(int sector) {
+        int emptyHead = sector == PARTS_SECTOR ? P_EMPTY : TITLE_P_EMPTY;
+        int slot = get8(sector, emptyHead);
+        if (slot == 0) throw new IllegalStateException("UTOC slot table full (sector " + sector + ")");
+        put8(sector, emptyHead, get8(sector, slotOffset(slot) + 7));
+        return slot;
+    }
+
+    /**
+     * Puts the slots of a chain back in P-EMPTY (entries cleared).
+     */
+    private void releaseChain(int sector, int head) {
+        int emptyHead = sector == PARTS_SECTOR ? P_EMPTY : TITLE_P_EMPTY;
+        for (int slot : chain(sector, head)) {
+            int off = at(slotOffset(slot));
+            Arrays.fill(sectors[sector], off, off + SLOT_BYTES, (byte) 0);
+            setLink(sector, slot, get8(sector, emptyHead));
+            put8(sector, emptyHead, slot);
+        }
+    }
+
+    /**
+     * Fails before any change if 'needed' slots cannot be found (empty slots + the chain about to be released).
+     */
+    private void checkRoomFor(int sector, int needed, int releasedHead) {
+        int emptyHead = sector == PARTS_SECTOR ? P_EMPTY : TITLE_P_EMPTY;
+        int available = chain(sector, get8(sector, emptyHead)).length + chain(sector, releasedHead).length;
+        if (needed > available) {
+            throw new IllegalStateException("UTOC slot table full (sector " + sector + "): need " + needed
+                    + ", " + available + " available");
+        }
+    }
+
+    private void setLink(int sector, int slot, int next) {
+        put8(sector, slotOffset(slot) + 7, next);
+    }
+
+    private void checkTrack(int tno) {
+        if (tno < firstTrack() || tno > lastTrack() || tno < 1) {
+            throw new IllegalArgumentException("No such track: " + tno);
+        }
+    }
+
+    private static void checkSlot(int slot) {
+        if (slot < 1 || slot >= SLOTS) throw new IllegalArgumentException("slot out of range: " + slot);
+    }
+
+    private static int slotOffset(int slot) {
+        return SLOT_TABLE + SLOT_BYTES * slot;
+    }
+
+    // offsets: sector-relative -> index in the 2336-byte data
+    private static int at(int sectorOffset) {
+        return sectorOffset - TOC_DATA_OFFSET;
+    }
+
+    private int get8(int sector, int sectorOffset) {
+        return sectors[sector][at(sectorOffset)] & 0xFF;
+    }
+
+    private void put8(int sector, int sectorOffset, int v) {
+        sectors[sector][at(sectorOffset)] = (byte) v;
+    }
+
+    private int get24(int sector, int sectorOffset) {
+        byte[] d = sectors[sector];
+        int i = at(sectorOffset);
+        return ((d[i] & 0xFF) << 16) | ((d[i + 1] & 0xFF) << 8) | (d[i + 2] & 0xFF);
+    }
+
+    private void put24(int sector, int sectorOffset, int v) {
+        byte[] d = sectors[sector];
+        int i = at(sectorOffset);
+        d[i] = (byte) (v >>> 16);
+        d[i + 1] = (byte) (v >>> 8);
+        d[i + 2] = (byte) v;
+    }
+
+    /**
+     * Address in the program area, 24 bits: cluster (14) + sector (6) + sound group (4).
+     * Sound groups are counted per sector pair (11 per 2 sectors, 0..10); the sector is the one
+     * where the sound group starts (sound groups 6..10 of a pair start in the odd sector).
+     */
+    public record Ads(int cluster, int sector, int soundGroup) {
+        private static final int SOUND_GROUPS_PER_PAIR = 11;
+
+        public Ads {
+            if (cluster < 0 || cluster > 0x3FFF) throw new IllegalArgumentException("cluster out of range: " + cluster);
+            if (sector < 0 || sector > 0x3F) throw new IllegalArgumentException("sector out of range: " + sector);
+            if (soundGroup < 0 || soundGroup > 0xF) throw new IllegalArgumentException("soundGroup out of range: " + soundGroup);
+        }
+
+        static Ads unpack(int v) {
+            return new Ads(v >>> 10, (v >>> 4) & 0x3F, v & 0xF);
+        }
+
+        int pack() {
+            return (cluster << 10) | (sector << 4) | soundGroup;
+        }
+
+        public static Ads clusterStart(int cluster) {
+            return new Ads(cluster, 0, 0);
+        }
+
+        /**
+         * Last sound group of a cluster (sector 31, sound group 10).
+         */
+        public static Ads clusterEnd(int cluster) {
+            return ofSoundGroupIndex((long) cluster * MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER
+                    + MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER - 1);
+        }
+
+        /**
+         * @param index cluster * 176 + sound group in cluster
+         */
+        public static Ads ofSoundGroupIndex(long index) {
+            int cluster = (int) (index / MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER);
+            int g = (int) (index % MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER);
+            int pair = g / SOUND_GROUPS_PER_PAIR;
+            int sg = g % SOUND_GROUPS_PER_PAIR;
+            return new Ads(cluster, 2 * pair + (sg >= 6 ? 1 : 0), sg);
+        }
+
+        public long soundGroupIndex() {
+            return (long) cluster * MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER + (sector / 2) * SOUND_GROUPS_PER_PAIR + soundGroup;
+        }
+
+        /**
+         * Sound group within the cluster, 0..175.
+         */
+        public int soundGroupInCluster() {
+            return (sector / 2) * SOUND_GROUPS_PER_PAIR + soundGroup;
+        }
+    }
+
+    /**
+     * One slot of the parts table: start..end (inclusive) + track mode.
+     */
+    public record Part(Ads start, Ads end, int mode) {
+        public Part {
+            Objects.requireNonNull(start, "start");
+            Objects.requireNonNull(end, "end");
+            if (mode < 0 || mode > 0xFF) throw new IllegalArgumentException("mode out of range: " + mode);
+            if (end.soundGroupIndex() < start.soundGroupIndex()) {
+                throw new IllegalArgumentException("Part ends before it starts: " + start + " > " + end);
+            }
+        }
+
+        /**
+         * Whole clusters firstCluster..firstCluster + clusterCount - 1.
+         */
+        public static Part ofClusters(int firstCluster, int clusterCount, int mode) {
+            if (clusterCount < 1) throw new IllegalArgumentException("clusterCount must be >= 1: " + clusterCount);
+            return new Part(Ads.clusterStart(firstCluster), Ads.clusterEnd(firstCluster + clusterCount - 1), mode);
+        }
+
+        public int firstCluster() {
+            return start.cluster();
+        }
+
+        public int lastCluster() {
+            return end.cluster();
+        }
+
+        public int clusterCount() {
+            return end.cluster() - start.cluster() + 1;
+        }
+
+        public long soundGroupCount() {
+            return end.soundGroupIndex() - start.soundGroupIndex() + 1;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package minidisc.cli;
+
+import atrac.Atrac1Decoder;
+import minidisc.*;
+import wav.PcmFrameSource;
+import wav.ResamplingPcmSource;
+import wav.WavPcmReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * md record-batch: many recordings in one JVM.
+ * <p>
+ * Manifest: one track per line, "image-file TAB wav-file", '#' starts a comment line, relative paths
+ * are resolved from the manifest's directory. The lines of one image become its tracks in manifest order,
+ * appended after the tracks already on it; missing images are created first (and removed again when
+ * not a single track could be written to them).
+ * <p>
+ * One virtual thread per image, under two global limits:
+ * - encode slots: clusters being ATRAC-encoded at the same time (CPU)
+ * - I/O slots: image reads / writes in flight (blocking file I/O holds a carrier thread)
+ * Each track: the clusters its WAV header announces allocated best fit (the largest free run when the
+ * length is unknown), WAV (resampled to 44.1 kHz if needed) recorded into it, unused tail freed, then the
+ * UTOC committed. The UTOC track ends on the last sound group holding audio (codec delay included),
+ * not on the cluster boundary. A failing track stops its own image only; the tracks committed before it
+ * stay on the image, the other images go on.
+ * With edc, the audio sectors are written with their EDC (MiniDiscEdc).
+ */
+final class BatchRecorder {
+
+    private static final int CHUNK_FRAMES = 4096;
+
+    record Track(File wav, int line) {
+    }
+
+    record Job(File image, List<Track> tracks) {
+    }
+
+    /**
+     * @param failure null when every track was recorded
+     */
+    record Outcome(Job job, int tracksRecorded, Exception failure) {
+    }
+
+    private final MiniDiscDiscType newImageType;
+    private final Semaphore encodeSlots;
+    private final Semaphore ioSlots;
+    private final boolean edc;
+
+    /**
+     * @param newImageType type of the images the manifest names but that do not exist yet
+     */
+    BatchRecorder(MiniDiscDiscType newImageType, int encodeSlots, int ioSlots, boolean edc) {
+        this.newImageType = Objects.requireNonNull(newImageType, "newImageType");
+        if (encodeSlots < 1 || ioSlots < 1) {
+            throw new IllegalArgumentException("slots must be >= 1: encode " + encodeSlots + ", io " + ioSlots);
+        }
+        this.encodeSlots = new Semaphore(encodeSlots);
+        this.ioSlots = new Semaphore(ioSlots);
+        this.edc = edc;
+    }
+
+    /**
+     * @throws IOException unreadable manifest, or a malformed line (with its number)
+     */
+    static List<Job> parseManifest(File manifest) throws IOException {
+        File base = manifest.getAbsoluteFile().getParentFile();
+        Map<Path, List<Track>> byImage = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("\t");
+            if (fields.length != 2 || fields[0].isBlank() || fields[1].isBlank()) {
+                throw new IOException(manifest + " line " + (i + 1) + ": expected <image-file> TAB <wav-file>");
+            }
+            Path image = resolve(base, fields[0].strip()).toPath().normalize();
+            byImage.computeIfAbsent(image, k -> new ArrayList<>()).add(new Track(resolve(base, fields[1].strip()), i + 1));
+        }
+        List<Job> jobs = new ArrayList<>();
+        byImage.forEach((image, tracks) -> jobs.add(new Job(image.toFile(), List.copyOf(tracks))));
+        return jobs;
+    }
+
+    /**
+     * Runs every job, each on its own virtual thread; returns when all are finished.
+     */
+    List<Outcome> run(List<Job> jobs) throws IOException {
+        List<Future<Outcome>> futures = new ArrayList<>();
+        try (ExecutorService pool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("md-batch-", 0).factory())) {
+            for (Job job : jobs) {
+                futures.add(pool.submit(() -> runJob(job)));
+            }
+        }
+        List<Outcome> outcomes = new ArrayList<>();
+        try {
+            for (Future<Outcome> f : futures) outcomes.add(f.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch job failed", e.getCause()); // runJob catches everything: not expected
+        }
+        return outcomes;
+    }
+
+    private Outcome runJob(Job job) {
+        String name = job.image().getName();
+        int recorded = 0;
+        boolean created = false;
+        try {
+            if (!job.image().exists()) {
+                created = true;
+                MiniDiscCli.writeBlankImage(job.image(), newImageType, false);
+                log(name, "created " + newImageType + " image " + job.image().getPath());
+            }
+            try (MiniDiscCli.OpenedImage opened = MiniDiscCli.openImageRw(job.image())) {
+                LayoutCheckedMiniDiscImage image = new LayoutCheckedMiniDiscImage(new ThrottledImage(opened.raw), opened.type);
+                BinaryUtocStore store = new BinaryUtocStore();
+                Utoc utoc = store.read(image);
+                BitmapClusterAllocator allocator = BitmapClusterAllocator.fromUtoc(utoc, opened.type);
+                for (Track track : job.tracks()) {
+                    recordTrack(name, image, store, utoc, allocator, track);
+                    recorded++;
+                }
+            }
+            log(name, "done, " + recorded + " track(s)");
+            return new Outcome(job, recorded, null);
+        } catch (Exception e) {
+            log(name, "FAILED after " + recorded + " track(s): " + e);
+            if (created && recorded == 0) discard(name, job.image());
+            return new Outcome(job, recorded, e);
+        }
+    }
+
+    private void recordTrack(String name, LayoutCheckedMiniDiscImage image, UtocStore store, Utoc utoc,
+                             BitmapClusterAllocator allocator, Track track) throws IOException {
+        long t0 = System.nanoTime();
+        int start;
+        int used = 0;
+        long frames = 0;
+        long soundGroups;
+        try (WavPcmReader wav = new WavPcmReader(track.wav())) {
+            PcmFrameSource source = ResamplingPcmSource.to44100(wav); // holds nothing else: closing wav is enough
+            int reserved = clustersToReserve(wav, allocator);
+            if (reserved == 0) throw new IOException("No free cluster left for " + track.wav());
+            start = allocator.allocateContiguous(reserved);
+            try (MiniDiscRecorder recorder = new MiniDiscRecorder(image, new ThrottledEncoder(new Atrac1SpEncoder()), start)) {
+                recorder.setEdc(edc);
+                long capacity = (long) reserved * MiniDiscRecorder.FRAMES_PER_CLUSTER;
+                short[] pcm = new short[CHUNK_FRAMES * 2];
+                for (int n = source.readFrames(pcm); n > 0; n = source.readFrames(pcm)) {
+                    frames += n;
+                    if (frames > capacity) {
+                        throw new IOException(track.wav() + " does not fit in the " + reserved + " clusters reserved for it");
+                    }
+                    recorder.writePcmFrames(pcm, 0, n);
+                }
+                if (frames == 0) throw new IOException("No audio in " + track.wav());
+                recorder.finalizeRecording();
+
+                // the decoder needs the codec delay past the last frame; the padding after it is not part of the track
+                long written = (long) (recorder.nextProgramCluster() - start) * MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER;
+                soundGroups = Math.min(written, ceilDiv(frames + Atrac1Decoder.CODEC_DELAY_SAMPLES,
+                        MiniDiscRecorder.FRAMES_PER_SOUNDGROUP));
+                used = (int) ceilDiv(soundGroups, MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER);
+            } finally {
+                if (used < reserved) allocator.freeRange(start + used, reserved - used);
+            }
+        }
+        image.flush();
+
+        Utoc.Ads end = Utoc.Ads.ofSoundGroupIndex((long) start * MiniDiscFormat.SOUND_GROUPS_PER_CLUSTER + soundGroups - 1);
+        int tno = utoc.addTrack(List.of(new Utoc.Part(Utoc.Ads.clusterStart(start), end, Utoc.MODE_AUDIO_STEREO)));
+        utoc.setTrackTitle(tno, title(track.wav()));
+        utoc.setFreeParts(allocator.freeParts(0));
+        store.write(image, utoc);
+        image.flush();
+
+        log(name, String.format("track %d: %s -> clusters 0x%04X..0x%04X (%.1f s audio, %.1f s)", tno,
+                track.wav().getName(), start, start + used - 1,
+                frames / (double) ResamplingPcmSource.CD_RATE, (System.nanoTime() - t0) / 1e9));
+    }
+
+    /**
+     * Clusters the header announces once resampled to 44.1 kHz, so that CLUSTERS_ALLOCATED counts what the
+     * track uses; the largest free run when the length is unknown (its unused tail is freed afterwards).
+     */
+    private static int clustersToReserve(WavPcmReader wav, BitmapClusterAllocator allocator) {
+        if (wav.frameCount() <= 0) return allocator.largestFreeRun();
+        long frames = ceilDiv(wav.frameCount() * ResamplingPcmSource.CD_RATE, wav.sampleRate());
+        return (int) Math.min(Integer.MAX_VALUE, ceilDiv(frames, MiniDiscRecorder.FRAMES_PER_CLUSTER));
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return (a + b - 1) / b;
+    }
+
+    /**
+     * Image created for this job, no track on it: not left behind.
+     */
+    private static void discard(String name, File image) {
+        try {
+            Files.deleteIfExists(image.toPath());
+            log(name, "removed " + image.getPath() + " (no track written)");
+        } catch (IOException e) {
+            log(name, "could not remove " + image.getPath() + ": " + e);
+        }
+    }
+
+    private static String title(File wav) {
+        String n = wav.getName();
+        int dot = n.lastIndexOf('.');
+        return dot > 0 ? n.substring(0, dot) : n;
+    }
+
+    private static File resolve(File base, String path) {
+        File f = new File(path);
+        return f.isAbsolute() ? f : new File(base, path);
+    }
+
+    private static void log(String image, String msg) {
+        System.out.println("[" + image + "] " + msg);
+    }
+
+    /**
+     * Encoder holding an encode slot for the duration of each cluster.
+     */
+    private final class ThrottledEncoder implements MiniDiscRecorder.Atrac1SpClusterEncoder {
+        private final MiniDiscRecorder.Atrac1SpClusterEncoder delegate;
+
+        ThrottledEncoder(MiniDiscRecorder.Atrac1SpClusterEncoder delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public MiniDiscSector[] encodeClusterToAudioSectors(short[] pcmInterleavedCluster, boolean lastCluster) {
+            encodeSlots.acquireUninterruptibly();
+            try {
+                return delegate.encodeClusterToAudioSectors(pcmInterleavedCluster, lastCluster);
+            } finally {
+                encodeSlots.release();
+            }
+        }
+    }
+
+    /**
+     * Image holding an I/O slot for the duration of each call. Does not close the delegate.
+     */
+    private final class ThrottledImage implements MiniDiscImage {
+        private final MiniDiscImage delegate;
+
+        ThrottledImage(MiniDiscImage delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int nbOfClusters() {
+            return delegate.nbOfClusters();
+        }
+
+        @Override
+        public void readSector(int clusterIndex, int sectorIndex, byte[] out2352) throws IOException {
+            ioSlots.acquireUninterruptibly();
+            try {
+                delegate.readSector(clusterIndex, sectorIndex, out2352);
+            } finally {
+                ioSlots.release();
+            }
+        }
+
+        @Override
+        public void writeSector(int clusterIndex, int sectorIndex, byte[] in2352) throws IOException {
+            ioSlots.acquireUninterruptibly();
+            try {
+                delegate.writeSector(clusterIndex, sectorIndex, in2352);
+            } finally {
+                ioSlots.release();
+            }
+        }
+
+        @Override
+        public void readClusters(int firstClusterIndex, int clusterCount, byte[] out) throws IOException {
+            ioSlots.acquireUninterruptibly();
+            try {
+                delegate.readClusters(firstClusterIndex, clusterCount, out);
+            } finally {
+                ioSlots.release();
+            }
+        }
+
+        @Override
+        public void writeClusters(int firstClusterIndex, int clusterCount, byte[] in) throws IOException {
+            ioSlots.acquireUninterruptibly();
+            try {
+                delegate.writeClusters(firstClusterIndex, clusterCount, in);
+            } finally {
+                ioSlots.release();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ioSlots.acquireUninterruptibly();
+            try {
+                delegate.flush();
+            } finally {
+                ioSlots.release();
+            }
+        }
+
+        @Override
+        public void close() {
+            // owned by the OpenedImage
+        }
+    }
+}
@@ -5,7 +5,14 @@ import minidisc.*;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
 
 public final class MiniDiscCli {
 
@@ -20,7 +27,14 @@ public final class MiniDiscCli {
     private static final int TOC_LEAD_OUT_START_ADS_OFF = 18; // offset in TOC payload
     private static final long TOC_SECTOR0_START = 0L;         // cluster 0, sector 0
 
+    // --stats: images opened by openImage are instrumented, metrics printed on stderr at exit
+    private static boolean stats;
+
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--stats")) {
+            enableStats();
+            args = slice(args, 1);
+        }
         if (args.length == 0) {
             usageAndExit(1);
         }
@@ -34,6 +48,55 @@ public final class MiniDiscCli {
                     throw new RuntimeException(e);
                 }
             }
+            case "verify" -> {
+                try {
+                    verify(slice(args, 1));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            case "compress" -> {
+                try {
+                    compress(slice(args, 1));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            case "decompress" -> {
+                try {
+                    decompress(slice(args, 1));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            case "extract" -> {
+                try {
+                    extract(slice(args, 1));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            case "clone" -> {
+                try {
+                    cloneImage(slice(args, 1));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            case "diff" -> {
+                try {
+                    diff(slice(args, 1));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            case "record-batch" -> {
+                try {
+                    recordBatch(slice(args, 1));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
             default -> usageAndExit(1);
         }
     }
@@ -82,10 +145,24 @@ public final class MiniDiscCli {
         if (out.exists()) {
             if (!force) die("File exists: " + out + " (use --force)");
             Files.delete(out.toPath());
-        } else {
-            File parent = out.getAbsoluteFile().getParentFile();
-            if (parent != null) parent.mkdirs();
         }
+        writeBlankImage(out, type, zeroFill);
+
+        System.out.println("Created MiniDisc image:");
+        System.out.println("  type          : " + type);
+        System.out.println("  programEndExcl : 0x" + Integer.toHexString(MiniDiscLayout.programEndExclusive(type)));
+        System.out.println("  totalClusters : " + totalClusters);
+        System.out.println("  totalBytes    : " + totalBytes);
+        System.out.println("  path          : " + out.getAbsolutePath());
+    }
+
+    /**
+     * Empty image (sparse unless zeroFill) with the disc type marked in the TOC. The file must not exist.
+     */
+    static void writeBlankImage(File out, MiniDiscDiscType type, boolean zeroFill) throws IOException {
+        long totalBytes = MiniDiscFormat.expectedImageBytes(MiniDiscLayout.totalClusters(type));
+        File parent = out.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
 
         try (RandomAccessFile raf = new RandomAccessFile(out, "rw")) {
             raf.setLength(totalBytes);
@@ -107,13 +184,6 @@ public final class MiniDiscCli {
 
             raf.getFD().sync();
         }
-
-        System.out.println("Created MiniDisc image:");
-        System.out.println("  type          : " + type);
-        System.out.println("  programEndExcl : 0x" + Integer.toHexString(MiniDiscLayout.programEndExclusive(type)));
-        System.out.println("  totalClusters : " + totalClusters);
-        System.out.println("  totalBytes    : " + totalBytes);
-        System.out.println("  path          : " + out.getAbsolutePath());
     }
 
     /**
@@ -149,36 +219,447 @@ public final class MiniDiscCli {
 
     /**
      * Syntax:
-     * md open <image-file>
+     * md open [--mmap] <image-file>
      * <p>
-     * Ouvre le fichier en RW, lit le TOC (lead-out start ADS à offset 18), déduit le type,
+     * Ouvre le fichier en lecture seule, lit le TOC (lead-out start ADS à offset 18), déduit le type,
      * vérifie la taille, et retourne une image "layout-checked".
      */
     static void open(String[] args) throws IOException {
-        if (args.length != 1) die("Usage: md open <image-file>");
-        File file = new File(args[0]);
+        ImageBackend backend = ImageBackend.FILE;
+        File file = null;
+        for (String a : args) {
+            switch (a) {
+                case "--mmap" -> backend = ImageBackend.MMAP;
+                default -> {
+                    if (a.startsWith("-")) die("Unknown option: " + a);
+                    if (file != null) die("Unexpected extra argument: " + a);
+                    file = new File(a);
+                }
+            }
+        }
+        if (file == null) die("Usage: md open [--mmap] <image-file>");
 
-        try (OpenedImage opened = openImageRw(file)) {
+        try (OpenedImage opened = openImage(file, backend, false)) {
             System.out.println("Opened MiniDisc image:");
             System.out.println("  path           : " + file.getAbsolutePath());
             System.out.println("  type           : " + opened.type);
+            System.out.println("  backend        : " + backend);
             System.out.println("  programEndExcl  : 0x" + Integer.toHexString(MiniDiscLayout.programEndExclusive(opened.type)));
             System.out.println("  totalClusters   : " + MiniDiscLayout.totalClusters(opened.type));
         }
     }
 
     /**
-     * Ouvre l’image en lecture/écriture et retourne:
+     * Syntax:
+     * md verify [--mmap] [--threads N] <image-file>...
+     * <p>
+     * Vérifie la structure de chaque secteur (sync, adresse, mode, séparateur) en parallèle.
+     * Exit code 1 si au moins une image a des erreurs.
+     */
+    static void verify(String[] args) throws IOException {
+        ImageBackend backend = ImageBackend.FILE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--mmap" -> backend = ImageBackend.MMAP;
+                case "--threads" -> {
+                    if (i + 1 >= args.length) die("Missing value after --threads");
+                    threads = parsePositiveInt(args[++i], "--threads");
+                }
+                default -> {
+                    if (a.startsWith("-")) die("Unknown option: " + a);
+                    files.add(new File(a));
+                }
+            }
+        }
+        if (files.isEmpty()) die("Usage: md verify [--mmap] [--threads N] <image-file>...");
+
+        boolean allClean = true;
+        for (File file : files) {
+            long t0 = System.nanoTime();
+            MiniDiscVerifier.Report report;
+            try (OpenedImage opened = openImage(file, backend, false)) {
+                report = new MiniDiscVerifier(opened.raw, opened.type, threads).verify();
+            }
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+
+            System.out.println((report.isClean() ? "OK    " : "ERRORS") + " " + file.getPath());
+            System.out.println("  clusters       : " + report.clustersChecked());
+            System.out.println("  sectors checked: " + report.sectorsChecked() + " (unrecorded: " + report.sectorsUnrecorded()
+                    + ", with EDC: " + report.sectorsWithEdc() + ")");
+            System.out.println("  time           : " + ms + " ms");
+            if (!report.isClean()) {
+                allClean = false;
+                report.issueCounts().forEach((kind, n) -> System.out.println("  " + kind + " : " + n));
+                for (MiniDiscVerifier.Issue issue : report.issues()) {
+                    System.out.println("    " + issue);
+                }
+                if (report.issues().size() < report.issueCount()) {
+                    System.out.println("    ... (" + (report.issueCount() - report.issues().size()) + " more)");
+                }
+            }
+        }
+        if (!allClean) System.exit(1);
+    }
+
+    /**
+     * Syntax:
+     * md compress [--level 1..9] [--force] <image-file> <out.mdz>
+     * <p>
+     * Chaque cluster est compressé (Deflate) séparément ; les clusters vides ne prennent pas de place.
+     * Sur un .mdz en entrée : réécrit le fichier sans les données mortes.
+     */
+    static void compress(String[] args) throws IOException {
+        int level = Deflater.BEST_SPEED;
+        boolean force = false;
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--level" -> {
+                    if (i + 1 >= args.length) die("Missing value after --level");
+                    level = parsePositiveInt(args[++i], "--level");
+                    if (level > Deflater.BEST_COMPRESSION) die("Invalid --level: " + level + " (expected 1..9)");
+                }
+                case "--force" -> force = true;
+                default -> {
+                    if (a.startsWith("-")) die("Unknown option: " + a);
+                    files.add(new File(a));
+                }
+            }
+        }
+        if (files.size() != 2) die("Usage: md compress [--level 1..9] [--force] <image-file> <out.mdz>");
+        File in = files.get(0);
+        File out = files.get(1);
+        if (out.exists() && !force) die("File exists: " + out + " (use --force)");
+        if (out.getAbsoluteFile().equals(in.getAbsoluteFile())) die("Input and output are the same file: " + out);
+
+        try (OpenedImage opened = openImage(in, ImageBackend.FILE, false)) {
+            CompressedMiniDiscImage.compress(opened.raw, out.toPath(), level);
+        }
+        long inBytes = in.length();
+        long outBytes = out.length();
+        System.out.println("Compressed MiniDisc image:");
+        System.out.println("  input  : " + in.getPath() + " (" + inBytes + " bytes)");
+        System.out.println("  output : " + out.getPath() + " (" + outBytes + " bytes, "
+                + String.format("%.1f%%", 100.0 * outBytes / inBytes) + ")");
+    }
+
+    /**
+     * Syntax:
+     * md decompress [--force] <in.mdz> <image-file>
+     */
+    static void decompress(String[] args) throws IOException {
+        boolean force = false;
+        List<File> files = new ArrayList<>();
+        for (String a : args) {
+            switch (a) {
+                case "--force" -> force = true;
+                default -> {
+                    if (a.startsWith("-")) die("Unknown option: " + a);
+                    files.add(new File(a));
+                }
+            }
+        }
+        if (files.size() != 2) die("Usage: md decompress [--force] <in.mdz> <image-file>");
+        File in = files.get(0);
+        File out = files.get(1);
+        if (!CompressedMiniDiscImage.isMdz(in.toPath())) die("Not an .mdz file: " + in);
+        if (out.exists()) {
+            if (!force) die("File exists: " + out + " (use --force)");
+            Files.delete(out.toPath());
+        }
+
+        int nbOfClusters;
+        try (CompressedMiniDiscImage mdz = CompressedMiniDiscImage.open(in.toPath(), false)) {
+            nbOfClusters = mdz.nbOfClusters();
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(out, "rw")) {
+            raf.setLength(MiniDiscFormat.expectedImageBytes(nbOfClusters)); // sparse: empty clusters are skipped
+            CompressedMiniDiscImage.decompress(in.toPath(), new FileMiniDiscImage(raf, nbOfClusters));
+        }
+        System.out.println("Decompressed MiniDisc image:");
+        System.out.println("  input  : " + in.getPath() + " (" + in.length() + " bytes)");
+        System.out.println("  output : " + out.getPath() + " (" + out.length() + " bytes)");
+    }
+
+    /**
+     * Hook rather than a print at the end of main: commands leave through System.exit too.
+     */
+    private static void enableStats() {
+        stats = true;
+        long t0 = System.nanoTime();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            System.err.println("Stats (" + ms + " ms):");
+            System.err.print(MiniDiscMetrics.global().snapshot().format());
+        }, "md-stats"));
+    }
+
+    /**
+     * Syntax:
+     * md extract [--mmap] [--threads N] [--track N]... <image-file> <out-dir>
+     * <p>
+     * Décode les pistes (toutes par défaut) en WAV 44,1 kHz dans out-dir, plusieurs pistes en parallèle.
+     * Exit code 1 si au moins une piste a échoué.
+     */
+    static void extract(String[] args) throws IOException {
+        ImageBackend backend = ImageBackend.FILE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Set<Integer> tracks = new LinkedHashSet<>(); // --track 3 --track 3: extracted once
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--mmap" -> backend = ImageBackend.MMAP;
+                case "--threads" -> {
+                    if (i + 1 >= args.length) die("Missing value after --threads");
+                    threads = parsePositiveInt(args[++i], "--threads");
+                }
+                case "--track" -> {
+                    if (i + 1 >= args.length) die("Missing value after --track");
+                    tracks.add(parsePositiveInt(args[++i], "--track"));
+                }
+                default -> {
+                    if (a.startsWith("-")) die("Unknown option: " + a);
+                    files.add(new File(a));
+                }
+            }
+        }
+        if (files.size() != 2) die("Usage: md extract [--mmap] [--threads N] [--track N]... <image-file> <out-dir>");
+        File in = files.get(0);
+        File outDir = files.get(1);
+
+        long t0 = System.nanoTime();
+        List<TrackExtractor.Result> results;
+        try (OpenedImage opened = openImage(in, backend, false)) {
+            Utoc utoc = new BinaryUtocStore().read(opened.raw);
+            if (utoc.trackCount() == 0) die("No track on " + in);
+            for (int tno : tracks) {
+                if (tno < utoc.firstTrack() || tno > utoc.lastTrack()) die("No track " + tno + " on " + in);
+            }
+            TrackExtractor extractor = new TrackExtractor(opened.raw, utoc, threads);
+            results = tracks.isEmpty() ? extractor.extractAll(outDir.toPath()) : extractor.extract(List.copyOf(tracks), outDir.toPath());
+        }
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+
+        int failed = 0;
+        long frames = 0;
+        for (TrackExtractor.Result r : results) {
+            if (r.failure() == null) {
+                frames += r.frames();
+                System.out.println(String.format("  %2d  %s (%.1f s)", r.track(), r.file(), r.frames() / (double) MiniDiscFormat.SAMPLE_RATE));
+            } else {
+                failed++;
+                System.out.println(String.format("  %2d  FAILED: %s", r.track(), r.failure()));
+            }
+        }
+        System.out.println("Extracted " + (results.size() - failed) + "/" + results.size() + " track(s), "
+                + String.format("%.1f", frames / (double) MiniDiscFormat.SAMPLE_RATE) + " s of audio, " + ms + " ms");
+        if (failed > 0) System.exit(1);
+    }
+
+    /**
+     * Syntax:
+     * md clone [--force | --update] <src-image> <dst-image>
+     * <p>
+     * Copie seulement les clusters utilisés d'après le UTOC de src (lead-in, UTOC, pistes) ; le reste de
+     * dst reste creux. --update : dst existe déjà, seuls les clusters qui diffèrent sont recopiés.
+     */
+    static void cloneImage(String[] args) throws IOException {
+        boolean force = false;
+        boolean update = false;
+        List<File> files = new ArrayList<>();
+        for (String a : args) {
+            switch (a) {
+                case "--force" -> force = true;
+                case "--update" -> update = true;
+                default -> {
+                    if (a.startsWith("-")) die("Unknown option: " + a);
+                    files.add(new File(a));
+                }
+            }
+        }
+        if (files.size() != 2 || (force && update)) die("Usage: md clone [--force | --update] <src-image> <dst-image>");
+        File src = files.get(0);
+        File dst = files.get(1);
+        if (dst.getAbsoluteFile().equals(src.getAbsoluteFile())) die("Source and destination are the same file: " + dst);
+        if (update && !dst.exists()) die("File not found: " + dst + " (--update needs an existing image)");
+        if (!update && dst.exists() && !force) die("File exists: " + dst + " (use --force or --update)");
+
+        long t0 = System.nanoTime();
+        UsedClusters from = usedClusters(src);
+        List<ImageReplicator.Run> runs;
+        long bytes;
+        if (update) {
+            UsedClusters to = usedClusters(dst);
+            if (to.type != from.type) die("Disc types differ: " + from.type + " / " + to.type);
+            List<ImageReplicator.Run> compared = union(from, to);
+            runs = ImageReplicator.diff(src.toPath(), dst.toPath(), from.nbOfClusters(), compared);
+            bytes = ImageReplicator.copyRuns(src.toPath(), dst.toPath(), from.nbOfClusters(), runs);
+        } else {
+            runs = from.runs;
+            bytes = ImageReplicator.cloneImage(src.toPath(), dst.toPath(), from.nbOfClusters(), runs);
+        }
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+
+        System.out.println((update ? "Updated" : "Cloned") + " MiniDisc image:");
+        System.out.println("  source   : " + src.getPath() + " (" + from.type + ")");
+        System.out.println("  target   : " + dst.getPath());
+        System.out.println("  copied   : " + ImageReplicator.clusterCount(runs) + " / " + from.nbOfClusters()
+                + " clusters in " + runs.size() + " run(s), " + bytes + " bytes");
+        System.out.println("  time     : " + ms + " ms");
+    }
+
+    /**
+     * Syntax:
+     * md diff <image-a> <image-b>
+     * <p>
+     * Compare les clusters utilisés par l'une ou l'autre image (UTOC) et liste les plages qui diffèrent.
+     * Exit code 1 si les images diffèrent.
+     */
+    static void diff(String[] args) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (String a : args) {
+            if (a.startsWith("-")) die("Unknown option: " + a);
+            files.add(new File(a));
+        }
+        if (files.size() != 2) die("Usage: md diff <image-a> <image-b>");
+        File a = files.get(0);
+        File b = files.get(1);
+
+        long t0 = System.nanoTime();
+        UsedClusters usedA = usedClusters(a);
+        UsedClusters usedB = usedClusters(b);
+        if (usedA.type != usedB.type) {
+            System.out.println("Disc types differ: " + a.getPath() + " is " + usedA.type + ", " + b.getPath() + " is " + usedB.type);
+            System.exit(1);
+        }
+        List<ImageReplicator.Run> compared = union(usedA, usedB);
+        List<ImageReplicator.Run> changed = ImageReplicator.diff(a.toPath(), b.toPath(), usedA.nbOfClusters(), compared);
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+
+        for (ImageReplicator.Run r : changed) {
+            System.out.println("  " + r);
+        }
+        System.out.println((changed.isEmpty() ? "Same" : "Differ") + ": " + ImageReplicator.clusterCount(changed)
+                + " cluster(s) changed in " + changed.size() + " run(s), "
+                + ImageReplicator.clusterCount(compared) + " compared, " + ms + " ms");
+        if (!changed.isEmpty()) System.exit(1);
+    }
+
+    private record UsedClusters(MiniDiscDiscType type, List<ImageReplicator.Run> runs) {
+        int nbOfClusters() {
+            return MiniDiscLayout.totalClusters(type);
+        }
+    }
+
+    /**
+     * Type + clusters used according to the UTOC. Plain image files only.
+     */
+    private static UsedClusters usedClusters(File file) throws IOException {
+        if (file.exists() && CompressedMiniDiscImage.isMdz(file.toPath())) {
+            die("Not a plain image file: " + file + " (use md decompress first)");
+        }
+        try (OpenedImage opened = openImage(file, ImageBackend.FILE, false)) {
+            Utoc utoc = new BinaryUtocStore().read(opened.raw);
+            return new UsedClusters(opened.type, ImageReplicator.usedRuns(utoc, opened.raw.nbOfClusters()));
+        }
+    }
+
+    private static List<ImageReplicator.Run> union(UsedClusters a, UsedClusters b) {
+        List<ImageReplicator.Run> all = new ArrayList<>(a.runs);
+        all.addAll(b.runs);
+        return ImageReplicator.merge(all);
+    }
+
+    /**
+     * Syntax:
+     * md record-batch [--type MD60|MD74|MD80] [--encoders N] [--io N] [--edc] <manifest>
+     * <p>
+     * Manifest : une piste par ligne, "image TAB wav" (voir BatchRecorder). Les images absentes sont
+     * créées (--type, MD74 par défaut). --encoders : clusters encodés en même temps (défaut : nb de cœurs),
+     * --io : accès image simultanés (défaut : 4), --edc : secteurs audio écrits avec leur EDC (CRC-32C).
+     * Exit code 1 si au moins une image a échoué.
+     */
+    static void recordBatch(String[] args) throws IOException {
+        MiniDiscDiscType type = MiniDiscDiscType.MD74;
+        int encoders = Runtime.getRuntime().availableProcessors();
+        int io = 4;
+        boolean edc = false;
+        File manifest = null;
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--type" -> {
+                    if (i + 1 >= args.length) die("Missing value after --type");
+                    type = parseType(args[++i]);
+                }
+                case "--encoders" -> {
+                    if (i + 1 >= args.length) die("Missing value after --encoders");
+                    encoders = parsePositiveInt(args[++i], "--encoders");
+                }
+                case "--io" -> {
+                    if (i + 1 >= args.length) die("Missing value after --io");
+                    io = parsePositiveInt(args[++i], "--io");
+                }
+                case "--edc" -> edc = true;
+                default -> {
+                    if (a.startsWith("-")) die("Unknown option: " + a);
+                    if (manifest != null) die("Unexpected extra argument: " + a);
+                    manifest = new File(a);
+                }
+            }
+        }
+        if (manifest == null) die("Usage: md record-batch [--type MD60|MD74|MD80] [--encoders N] [--io N] [--edc] <manifest>");
+
+        List<BatchRecorder.Job> jobs = null;
+        try {
+            jobs = BatchRecorder.parseManifest(manifest);
+        } catch (IOException e) {
+            die(e.getMessage());
+        }
+        long t0 = System.nanoTime();
+        List<BatchRecorder.Outcome> outcomes = new BatchRecorder(type, encoders, io, edc).run(jobs);
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+
+        int tracks = 0;
+        int failed = 0;
+        for (BatchRecorder.Outcome o : outcomes) {
+            tracks += o.tracksRecorded();
+            if (o.failure() != null) failed++;
+        }
+        System.out.println("Batch: " + outcomes.size() + " image(s), " + tracks + " track(s) recorded, "
+                + failed + " image(s) failed, " + ms + " ms");
+        for (BatchRecorder.Outcome o : outcomes) {
+            if (o.failure() != null) System.out.println("  FAILED " + o.job().image().getPath() + ": " + o.failure());
+        }
+        if (failed > 0) System.exit(1);
+    }
+
+    static OpenedImage openImageRw(File file) throws IOException {
+        return openImage(file, ImageBackend.FILE, true);
+    }
+
+    /**
+     * Ouvre l’image et retourne:
      * - type disque déduit du TOC
-     * - raw image
+     * - raw image (RandomAccessFile, mapping mémoire ou .mdz selon le fichier et le backend)
      * - wrapper LayoutChecked
+     * writable false : lecture seule (commandes qui ne modifient pas l’image, fichiers en lecture seule acceptés).
      */
-    static OpenedImage openImageRw(File file) throws IOException {
+    static OpenedImage openImage(File file, ImageBackend backend, boolean writable) throws IOException {
         if (!file.exists()) throw new IOException("File not found: " + file);
 
-        // 1) Lire leadOutStartAds dans le TOC via RandomAccessFile (RW, mais on ne modifie pas ici)
+        if (CompressedMiniDiscImage.isMdz(file.toPath())) {
+            return openMdz(file, writable);
+        }
+
+        // 1) Lire leadOutStartAds dans le TOC via RandomAccessFile (lecture seule)
         int leadOutStartAds;
-        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
             long pos = TOC_SECTOR0_START + TOC_HEADER_BYTES + TOC_LEAD_OUT_START_ADS_OFF;
             raf.seek(pos);
             leadOutStartAds = readU16BE(raf);
@@ -190,28 +671,75 @@ public final class MiniDiscCli {
             throw new IOException("Unknown leadOutStartAds in TOC: 0x" + Integer.toHexString(leadOutStartAds));
         }
 
-        // 3) Ouvrir l’image brute (RW)
-        // NOTE: adaptez selon votre signature réelle.
-        MiniDiscImage raw = new FileMiniDiscImage(
-                new RandomAccessFile(file, "rw"),
-                MiniDiscLayout.totalClusters(type)
-        );
-        // 4) Vérifier cohérence taille (fortement recommandé)
+        // 3) Vérifier cohérence taille avant d'ouvrir (fortement recommandé)
         long expectedBytes = (long) MiniDiscLayout.totalClusters(type) * CLUSTER_BYTES;
         long actualBytes = file.length();
         if (actualBytes != expectedBytes) {
-            raw.close();
             throw new IOException("Image size mismatch: expected " + expectedBytes + " bytes, got " + actualBytes);
         }
 
+        // 4) Ouvrir l’image brute (RW ou lecture seule)
+        MiniDiscImage raw = switch (backend) {
+            case FILE -> new FileMiniDiscImage(
+                    new RandomAccessFile(file, writable ? "rw" : "r"),
+                    MiniDiscLayout.totalClusters(type)
+            );
+            case MMAP -> openMapped(file, MiniDiscLayout.totalClusters(type), writable);
+        };
+
         // 5) Wrapper layout-checked
-        LayoutCheckedMiniDiscImage checked = switch (type) {
+        if (stats) raw = new InstrumentedMiniDiscImage(raw);
+        return new OpenedImage(type, raw, checkedImage(type, raw));
+    }
+
+    /**
+     * Le canal est fermé si le mapping échoue (taille modifiée entre-temps, image trop grande...).
+     */
+    private static MappedMiniDiscImage openMapped(File file, int nbOfClusters, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new MappedMiniDiscImage(channel, nbOfClusters,
+                    writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * .mdz : même lecture du TOC, mais à travers l’image (le fichier est compressé).
+     */
+    private static OpenedImage openMdz(File file, boolean writable) throws IOException {
+        MiniDiscImage raw = CompressedMiniDiscImage.open(file.toPath(), writable);
+        if (stats) raw = new InstrumentedMiniDiscImage(raw);
+        try {
+            byte[] toc = new byte[SECTOR_BYTES];
+            raw.readSector(0, 0, toc);
+            int off = TOC_HEADER_BYTES + TOC_LEAD_OUT_START_ADS_OFF;
+            int leadOutStartAds = ((toc[off] & 0xFF) << 8) | (toc[off + 1] & 0xFF);
+            MiniDiscDiscType type = typeFromLeadOutStartAds(leadOutStartAds);
+            if (type == null) {
+                throw new IOException("Unknown leadOutStartAds in TOC: 0x" + Integer.toHexString(leadOutStartAds));
+            }
+            if (raw.nbOfClusters() != MiniDiscLayout.totalClusters(type)) {
+                throw new IOException("Image size mismatch: expected " + MiniDiscLayout.totalClusters(type)
+                        + " clusters, got " + raw.nbOfClusters());
+            }
+            return new OpenedImage(type, raw, checkedImage(type, raw));
+        } catch (IOException | RuntimeException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    private static LayoutCheckedMiniDiscImage checkedImage(MiniDiscDiscType type, MiniDiscImage raw) {
+        return switch (type) {
             case MD60 -> MiniDiscImages.md60(raw);
             case MD74 -> MiniDiscImages.md74(raw);
             case MD80 -> MiniDiscImages.md80(raw);
         };
-
-        return new OpenedImage(type, raw, checked);
     }
 
     private static MiniDiscDiscType typeFromLeadOutStartAds(int leadOutStartAds) {
@@ -221,6 +749,17 @@ public final class MiniDiscCli {
         return null;
     }
 
+    private static int parsePositiveInt(String s, String option) {
+        try {
+            int v = Integer.parseInt(s);
+            if (v > 0) return v;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        die("Invalid " + option + ": " + s + " (expected a positive integer)");
+        return 0; // unreachable
+    }
+
     private static int readU16BE(RandomAccessFile raf) throws IOException {
         int hi = raf.readUnsignedByte();
         int lo = raf.readUnsignedByte();
@@ -229,8 +768,18 @@ public final class MiniDiscCli {
 
     private static void usageAndExit(int code) {
         System.err.println("""
-                Usage:
+                Usage: md [--stats] <command> ...
                   md create --type MD60|MD74|MD80 [--force] [--zero-fill] <image-file>
+                  md open [--mmap] <image-file>
+                  md verify [--mmap] [--threads N] <image-file>...
+                  md compress [--level 1..9] [--force] <image-file> <out.mdz>
+                  md decompress [--force] <in.mdz> <image-file>
+                  md extract [--mmap] [--threads N] [--track N]... <image-file> <out-dir>
+                  md clone [--force | --update] <src-image> <dst-image>
+                  md diff <image-a> <image-b>
+                  md record-batch [--type MD60|MD74|MD80] [--encoders N] [--io N] [--edc] <manifest>
+
+                  --stats: print I/O, encoding and allocation metrics on stderr at exit
                 """);
         System.exit(code);
     }
@@ -247,6 +796,15 @@ public final class MiniDiscCli {
         return out;
     }
 
+    /**
+     * Raw image implementation used by openImage.
+     * MMAP: whole image mapped in memory, sector I/O without syscalls; flushed on close.
+     */
+    enum ImageBackend {
+        FILE,
+        MMAP
+    }
+
     static final class OpenedImage implements AutoCloseable {
         final MiniDiscDiscType type;
         final MiniDiscImage raw;
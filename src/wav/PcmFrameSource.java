@@ -7,4 +7,11 @@ public interface PcmFrameSource extends AutoCloseable {
      * @return number of frames read, or -1 on EOF
      */
     int readFrames(short[] dst) throws IOException;
+
+    /**
+     * Frames per second of the stream (MiniDiscRecorder expects 44100, see ResamplingPcmSource.to44100).
+     */
+    default int sampleRate() {
+        return 44100;
+    }
 }
\ No newline at end of file
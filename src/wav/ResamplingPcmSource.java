@@ -0,0 +1,285 @@
+package wav;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Sample rate converter in front of a 16-bit stereo PcmFrameSource (e.g. 48 kHz -> 44.1 kHz).
+ * <p>
+ * Polyphase FIR on the reduced ratio L/M (44100/48000 = 147/160): Kaiser-windowed sinc, flat to 90% of
+ * the lower Nyquist frequency, -100 dB from the lower Nyquist frequency on. The filter bank (L phases)
+ * is computed once; input is pulled in blocks into per-channel history buffers and only the
+ * output samples are computed. Linear-phase delay is compensated: output frame 0 lines up with input frame 0.
+ * <p>
+ * With a channel executor, the right channel of each block is filtered there while the caller's thread
+ * does the left one. Not thread-safe otherwise.
+ */
+public final class ResamplingPcmSource implements PcmFrameSource {
+
+    public static final int CD_RATE = 44100;
+
+    private static final int CHANNELS = 2;
+    private static final int BLOCK_FRAMES = 8192;
+    private static final double STOPBAND_DB = 100.0;
+    private static final double PASSBAND_FRACTION = 0.90;
+
+    private final PcmFrameSource source;
+    private final int outputRate;
+    private final int up;                      // L
+    private final int down;                    // M
+    private final int taps;                    // T, per phase
+    private final float[][] phases;            // [L][T], reversed: dot product with history[i - T + 1 .. i]
+    private final Executor channelExecutor;    // null: caller's thread only
+
+    private final short[] in = new short[BLOCK_FRAMES * CHANNELS];
+    private final float[][] history = new float[CHANNELS][];
+    private int count;                         // valid samples in history
+    private long tau;                          // next output, in 1/L input samples from history[0]
+
+    private final short[] out;
+    private int outPos;
+    private int outLen;
+
+    private long inputFrames;
+    private long outputFrames;
+    private long expectedOutputFrames = -1;    // known once the source is drained
+    private boolean sourceDone;
+
+    /**
+     * Returns source itself when it already runs at 44.1 kHz.
+     */
+    public static PcmFrameSource to44100(PcmFrameSource source) {
+        return source.sampleRate() == CD_RATE ? source : new ResamplingPcmSource(source, CD_RATE, null);
+    }
+
+    /**
+     * @param channelExecutor runs the right channel of each block (not owned), or null
+     */
+    public ResamplingPcmSource(PcmFrameSource source, int outputRate, Executor channelExecutor) {
+        this.source = Objects.requireNonNull(source, "source");
+        int inputRate = source.sampleRate();
+        if (inputRate <= 0 || outputRate <= 0) {
+            throw new IllegalArgumentException("Invalid rates: " + inputRate + " -> " + outputRate);
+        }
+        this.outputRate = outputRate;
+        this.channelExecutor = channelExecutor;
+
+        int g = gcd(inputRate, outputRate);
+        this.up = outputRate / g;
+        this.down = inputRate / g;
+
+        // prototype at L * inputRate
+        double stopEdge = Math.min(inputRate, outputRate) / 2.0;
+        double passEdge = stopEdge * PASSBAND_FRACTION;
+        double protoRate = (double) up * inputRate;
+        double transition = (stopEdge - passEdge) / protoRate;
+        int length = (int) Math.ceil((STOPBAND_DB - 7.95) / (2.285 * 2 * Math.PI * transition));
+        this.taps = Math.max(2, (length + up - 1) / up);
+        this.phases = designPhases(up, taps, (passEdge + stopEdge) / 2.0 / protoRate);
+
+        for (int ch = 0; ch < CHANNELS; ch++) {
+            history[ch] = new float[2 * taps + BLOCK_FRAMES];
+        }
+        this.count = taps - 1;                         // zeros before the first input sample
+        this.tau = (long) (taps - 1) * up + filterDelay(up, taps);   // + linear-phase delay
+        this.out = new short[(int) ((long) (2 * taps + BLOCK_FRAMES) * up / down + 2) * CHANNELS];
+    }
+
+    @Override
+    public int sampleRate() {
+        return outputRate;
+    }
+
+    /**
+     * @param dst interleaved stereo [L,R,L,R,...], filled with up to dst.length / 2 frames
+     */
+    @Override
+    public int readFrames(short[] dst) throws IOException {
+        int maxFrames = dst.length / CHANNELS;
+        if (maxFrames == 0) return 0;
+        int frames = 0;
+        while (frames < maxFrames) {
+            if (outPos == outLen && !refill()) break;
+            int n = Math.min(maxFrames - frames, (outLen - outPos) / CHANNELS);
+            System.arraycopy(out, outPos, dst, frames * CHANNELS, n * CHANNELS);
+            outPos += n * CHANNELS;
+            frames += n;
+        }
+        return frames == 0 ? -1 : frames;
+    }
+
+    /**
+     * Pulls one input block (or the end-of-stream zeros) and filters it into out.
+     *
+     * @return false when everything has been output
+     */
+    private boolean refill() throws IOException {
+        outPos = 0;
+        outLen = 0;
+        while (outLen == 0) {
+            if (sourceDone) {
+                return false;
+            }
+            int frames = source.readFrames(in);
+            if (frames > 0) {
+                deinterleave(frames);
+                inputFrames += frames;
+            } else {
+                // flush: enough zeros to reach the end of the filter, then stop at the exact output length
+                for (float[] h : history) Arrays.fill(h, count, count + taps, 0f);
+                count += taps;
+                sourceDone = true;
+                expectedOutputFrames = (inputFrames * up + down - 1) / down;
+            }
+            filterAvailable();
+        }
+        return true;
+    }
+
+    private void deinterleave(int frames) {
+        float[] left = history[0];
+        float[] right = history[1];
+        for (int i = 0, p = 0; i < frames; i++, p += CHANNELS) {
+            left[count + i] = in[p];
+            right[count + i] = in[p + 1];
+        }
+        count += frames;
+    }
+
+    private void filterAvailable() {
+        // outputs whose newest input sample (tau / L) is in history
+        long limit = (long) count * up;
+        int n = tau >= limit ? 0 : (int) ((limit - 1 - tau) / down + 1);
+        if (expectedOutputFrames >= 0) {
+            n = (int) Math.min(n, expectedOutputFrames - outputFrames);
+        }
+
+        if (n > 0) {
+            int frames = n;
+            if (channelExecutor != null) {
+                CompletableFuture<Void> right = CompletableFuture.runAsync(() -> filterChannel(1, frames), channelExecutor);
+                filterChannel(0, frames);
+                try {
+                    right.join();
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException re) throw re;
+                    if (cause instanceof Error err) throw err;
+                    throw e;
+                }
+            } else {
+                filterChannel(0, frames);
+                filterChannel(1, frames);
+            }
+            tau += (long) n * down;
+            outputFrames += n;
+            outLen = n * CHANNELS;
+        }
+
+        // drop the samples no later output needs
+        int drop = (int) Math.min(tau / up - (taps - 1), count);
+        if (drop > 0) {
+            for (float[] h : history) System.arraycopy(h, drop, h, 0, count - drop);
+            count -= drop;
+            tau -= (long) drop * up;
+        }
+    }
+
+    private void filterChannel(int ch, int frames) {
+        float[] h = history[ch];
+        long t = tau;
+        for (int i = 0, p = ch; i < frames; i++, p += CHANNELS, t += down) {
+            int newest = (int) (t / up);
+            float[] coef = phases[(int) (t % up)];
+            int j = newest - taps + 1;
+            // 4 partial sums: independent adds the JIT can pipeline
+            float a0 = 0f, a1 = 0f, a2 = 0f, a3 = 0f;
+            int k = 0;
+            for (int end = taps - 3; k < end; k += 4, j += 4) {
+                a0 += coef[k] * h[j];
+                a1 += coef[k + 1] * h[j + 1];
+                a2 += coef[k + 2] * h[j + 2];
+                a3 += coef[k + 3] * h[j + 3];
+            }
+            for (; k < taps; k++, j++) {
+                a0 += coef[k] * h[j];
+            }
+            int v = Math.round((a0 + a1) + (a2 + a3));
+            out[p] = (short) (v > Short.MAX_VALUE ? Short.MAX_VALUE : v < Short.MIN_VALUE ? Short.MIN_VALUE : v);
+        }
+    }
+
+    /**
+     * Closes the wrapped source (sources throw IOException; anything else checked is wrapped in one).
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            source.close();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Closing " + source.getClass().getSimpleName() + " failed", e);
+        }
+    }
+
+    /**
+     * Delay of the prototype, in prototype samples: kept whole (odd symmetric length)
+     * so that the compensation is exact.
+     */
+    private static int filterDelay(int up, int taps) {
+        return (up * taps - 1) / 2;
+    }
+
+    /**
+     * Kaiser-windowed sinc (odd length, up to L * T taps), cutoff in cycles per prototype sample,
+     * split into L phases of T taps (each summing to ~1), reversed for the history dot product.
+     */
+    private static float[][] designPhases(int up, int taps, double cutoff) {
+        int center = filterDelay(up, taps);
+        double beta = 0.1102 * (STOPBAND_DB - 8.7);
+        double i0Beta = besselI0(beta);
+        double[] proto = new double[up * taps]; // last tap stays 0 when L * T is even
+        double sum = 0.0;
+        for (int k = 0; k <= 2 * center; k++) {
+            double x = k - center;
+            double sinc = x == 0.0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * x) / (Math.PI * x);
+            double r = x / (center + 0.5);
+            double window = besselI0(beta * Math.sqrt(Math.max(0.0, 1 - r * r))) / i0Beta;
+            proto[k] = sinc * window;
+            sum += proto[k];
+        }
+        float[][] phases = new float[up][taps];
+        double gain = up / sum;
+        for (int p = 0; p < up; p++) {
+            for (int j = 0; j < taps; j++) {
+                phases[p][taps - 1 - j] = (float) (proto[p + j * up] * gain);
+            }
+        }
+        return phases;
+    }
+
+    private static double besselI0(double x) {
+        double sum = 1.0;
+        double term = 1.0;
+        double q = x * x / 4.0;
+        for (int k = 1; k < 64 && term > 1e-12 * sum; k++) {
+            term *= q / ((double) k * k);
+            sum += term;
+        }
+        return sum;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -6,26 +6,81 @@ import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
+/**
+ * Streaming PCM reader, 16-bit stereo frames at the file's own sample rate (see sampleRate();
+ * ResamplingPcmSource.to44100 brings other rates to what MiniDiscRecorder expects).
+ * <p>
+ * RIFF/WAVE chunks are parsed here: when the data chunk is already PCM 16-bit stereo
+ * (plain or WAVE_FORMAT_EXTENSIBLE), frames are read straight from memory-mapped windows of the file.
+ * Anything else goes through the AudioSystem conversion chain (AudioSystem cannot resample).
+ */
 public final class WavPcmReader implements PcmFrameSource {
 
+    private static final int DEFAULT_RATE = 44100;
+    private static final int TARGET_CHANNELS = 2;
+    private static final int FRAME_BYTES = 4;
+    private static final long MAP_WINDOW_BYTES = 64L << 20; // multiple of FRAME_BYTES
+
+    private static final int WAVE_FORMAT_PCM = 0x0001;
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+    // direct path (channel != null)
+    private final FileChannel channel;
+    private final long dataEnd;
+    private long windowEnd;              // file position after the current window
+    private ShortBuffer window;
+
+    // AudioSystem path (pcmStream != null)
     private final AudioInputStream pcmStream;
-    private int offset;
+    private byte[] bytes;
+
+    private final long frameCount;
+    private final int sampleRate;
 
     public WavPcmReader(File inputWav) {
+        WaveHeader header;
+        try {
+            header = WaveHeader.parse(inputWav);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+
+        if (header != null && header.isDirectPcm()) {
+            try {
+                this.channel = FileChannel.open(inputWav.toPath(), StandardOpenOption.READ);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+            long dataBytes = header.dataBytes / FRAME_BYTES * FRAME_BYTES;
+            this.windowEnd = header.dataStart;
+            this.dataEnd = header.dataStart + dataBytes;
+            this.frameCount = dataBytes / FRAME_BYTES;
+            this.sampleRate = header.sampleRate;
+            this.pcmStream = null;
+            return;
+        }
+
         AudioInputStream ais = null;
         try {
             ais = AudioSystem.getAudioInputStream(inputWav);
             AudioFormat baseFormat = ais.getFormat();
 
-            // On force en PCM 16-bit little-endian stéréo 44.1 kHz
+            float rate = baseFormat.getSampleRate() > 0 ? baseFormat.getSampleRate() : DEFAULT_RATE;
+
+            // On force en PCM 16-bit little-endian stéréo, à la fréquence du fichier
             AudioFormat target = new AudioFormat(
                     AudioFormat.Encoding.PCM_SIGNED,
-                    44100f,
+                    rate,
                     16,
-                    2,
-                    4,          // frame size = 2 channels * 2 bytes
-                    44100f,
+                    TARGET_CHANNELS,
+                    FRAME_BYTES,    // frame size = 2 channels * 2 bytes
+                    rate,
                     false       // little endian
             );
 
@@ -36,17 +91,147 @@ public final class WavPcmReader implements PcmFrameSource {
         } catch (IOException e) {
             throw new IllegalArgumentException(e);
         }
+        this.channel = null;
+        this.dataEnd = 0L;
+        this.frameCount = pcmStream.getFrameLength(); // AudioSystem.NOT_SPECIFIED (-1) if unknown
+        this.sampleRate = Math.round(pcmStream.getFormat().getSampleRate());
+    }
 
+    /**
+     * @return number of frames in the stream, or -1 if the container does not tell
+     */
+    public long frameCount() {
+        return frameCount;
     }
 
+    @Override
+    public int sampleRate() {
+        return sampleRate;
+    }
 
+    /**
+     * true when frames are read straight from the mapped file (no AudioSystem conversion).
+     */
+    public boolean isDirect() {
+        return channel != null;
+    }
+
+    /**
+     * @param dst interleaved stereo [L,R,L,R,...], filled with up to dst.length / 2 frames
+     */
     @Override
     public int readFrames(short[] dst) throws IOException {
-        return 0;
+        int maxFrames = dst.length / TARGET_CHANNELS;
+        if (maxFrames == 0) return 0;
+        return channel != null ? readMapped(dst, maxFrames) : readConverted(dst, maxFrames);
+    }
+
+    private int readMapped(short[] dst, int maxFrames) throws IOException {
+        int frames = 0;
+        while (frames < maxFrames) {
+            if (window == null || !window.hasRemaining()) {
+                if (windowEnd >= dataEnd) break;
+                long len = Math.min(MAP_WINDOW_BYTES, dataEnd - windowEnd);
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, len)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asShortBuffer();
+                windowEnd += len;
+            }
+            int n = Math.min(maxFrames - frames, window.remaining() / TARGET_CHANNELS);
+            window.get(dst, frames * TARGET_CHANNELS, n * TARGET_CHANNELS);
+            frames += n;
+        }
+        return frames == 0 ? -1 : frames;
+    }
+
+    private int readConverted(short[] dst, int maxFrames) throws IOException {
+        int wanted = maxFrames * FRAME_BYTES;
+        if (bytes == null || bytes.length < wanted) {
+            bytes = new byte[wanted];
+        }
+        int got = 0;
+        while (got < wanted) {
+            int n = pcmStream.read(bytes, got, wanted - got);
+            if (n < 0) break;
+            got += n;
+        }
+        int frames = got / FRAME_BYTES;
+        if (frames == 0) return -1;
+        ByteBuffer.wrap(bytes, 0, frames * FRAME_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .asShortBuffer().get(dst, 0, frames * TARGET_CHANNELS);
+        return frames;
     }
 
     @Override
-    public void close() throws Exception {
-        pcmStream.close();
+    public void close() throws IOException {
+        if (channel != null) {
+            window = null;
+            channel.close();
+        } else {
+            pcmStream.close();
+        }
+    }
+
+    /**
+     * What we need from a RIFF/WAVE header: "fmt " fields + position of the "data" chunk.
+     */
+    private record WaveHeader(int formatTag, int channels, int sampleRate, int bitsPerSample,
+                              long dataStart, long dataBytes) {
+
+        boolean isDirectPcm() {
+            return formatTag == WAVE_FORMAT_PCM && channels == TARGET_CHANNELS
+                    && sampleRate > 0 && bitsPerSample == 16;
+        }
+
+        /**
+         * @return null if this is not a RIFF/WAVE file or a chunk is missing (left to AudioSystem)
+         */
+        static WaveHeader parse(File file) throws IOException {
+            try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long fileSize = ch.size();
+                ByteBuffer buf = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+
+                if (!readFully(ch, buf, 0L, 12)) return null;
+                if (buf.getInt(0) != fourCc("RIFF") || buf.getInt(8) != fourCc("WAVE")) return null;
+
+                int formatTag = -1, channels = 0, sampleRate = 0, bitsPerSample = 0;
+                long dataStart = -1L, dataBytes = 0L;
+                long pos = 12L;
+                while ((formatTag < 0 || dataStart < 0) && readFully(ch, buf, pos, 8)) {
+                    int id = buf.getInt(0);
+                    long size = buf.getInt(4) & 0xFFFF_FFFFL;
+                    long body = pos + 8;
+                    if (id == fourCc("fmt ")) {
+                        if (size < 16 || !readFully(ch, buf, body, (int) Math.min(size, 40))) return null;
+                        formatTag = buf.getShort(0) & 0xFFFF;
+                        channels = buf.getShort(2) & 0xFFFF;
+                        sampleRate = buf.getInt(4);
+                        bitsPerSample = buf.getShort(14) & 0xFFFF;
+                        if (formatTag == WAVE_FORMAT_EXTENSIBLE && size >= 26) {
+                            formatTag = buf.getShort(24) & 0xFFFF; // first 2 bytes of the sub-format GUID
+                        }
+                    } else if (id == fourCc("data")) {
+                        dataStart = body;
+                        // streamed files leave the size at 0 / 0xFFFFFFFF: take what the file holds
+                        dataBytes = size == 0L || body + size > fileSize ? fileSize - body : size;
+                    }
+                    pos = body + size + (size & 1); // chunks are word-aligned
+                }
+                if (formatTag < 0 || dataStart < 0) return null;
+                return new WaveHeader(formatTag, channels, sampleRate, bitsPerSample, dataStart, dataBytes);
+            }
+        }
+
+        private static boolean readFully(FileChannel ch, ByteBuffer buf, long pos, int len) throws IOException {
+            buf.clear().limit(len);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, pos + buf.position()) < 0) return false;
+            }
+            return true;
+        }
+
+        private static int fourCc(String s) {
+            return (s.charAt(0)) | (s.charAt(1) << 8) | (s.charAt(2) << 16) | (s.charAt(3) << 24);
+        }
     }
 }
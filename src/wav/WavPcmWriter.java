@@ -0,0 +1,120 @@
+package wav;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Streaming writer of a 16-bit stereo PCM WAV file (plain WAVE_FORMAT_PCM, 44-byte header).
+ * <p>
+ * The header is written first with zero sizes and patched by close(), so the whole stream never
+ * has to be in memory: frames go through one reusable direct buffer (BUFFER_FRAMES frames per write).
+ * A file that was not closed has zero sizes in its header.
+ */
+public final class WavPcmWriter implements AutoCloseable {
+
+    public static final int BUFFER_FRAMES = 64 * 1024;
+
+    private static final int CHANNELS = 2;
+    private static final int FRAME_BYTES = 4;
+    private static final int HEADER_BYTES = 44;
+    private static final long MAX_DATA_BYTES = 0xFFFFFFFFL - (HEADER_BYTES - 8); // RIFF size is 32-bit
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_FRAMES * FRAME_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final int sampleRate;
+    private long dataBytes;
+    private boolean closed;
+
+    /**
+     * Creates or truncates the file.
+     */
+    public WavPcmWriter(Path file, int sampleRate) throws IOException {
+        Objects.requireNonNull(file, "file");
+        if (sampleRate <= 0) throw new IllegalArgumentException("sampleRate must be > 0: " + sampleRate);
+        this.sampleRate = sampleRate;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeHeader();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int sampleRate() {
+        return sampleRate;
+    }
+
+    public long framesWritten() {
+        return dataBytes / FRAME_BYTES;
+    }
+
+    /**
+     * @param interleavedStereo [L,R,L,R,...]
+     */
+    public void writeFrames(short[] interleavedStereo, int offsetFrames, int frameCount) throws IOException {
+        Objects.requireNonNull(interleavedStereo, "interleavedStereo");
+        if (closed) throw new IOException("WAV writer is closed");
+        if (offsetFrames < 0 || frameCount < 0 || ((long) offsetFrames + frameCount) * CHANNELS > interleavedStereo.length) {
+            throw new IllegalArgumentException("Bad offset/count: " + offsetFrames + " + " + frameCount);
+        }
+        if (dataBytes + (long) frameCount * FRAME_BYTES > MAX_DATA_BYTES) {
+            throw new IOException("WAV data would exceed 4 GiB");
+        }
+        int pos = offsetFrames * CHANNELS;
+        int remaining = frameCount;
+        while (remaining > 0) {
+            int n = Math.min(remaining, BUFFER_FRAMES);
+            buffer.clear();
+            buffer.asShortBuffer().put(interleavedStereo, pos, n * CHANNELS);
+            buffer.limit(n * FRAME_BYTES);
+            writeFully(buffer, HEADER_BYTES + dataBytes);
+            dataBytes += (long) n * FRAME_BYTES;
+            pos += n * CHANNELS;
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Patches the RIFF and data sizes, then closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            writeHeader();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        h.put(new byte[]{'R', 'I', 'F', 'F'}).putInt((int) (HEADER_BYTES - 8 + dataBytes));
+        h.put(new byte[]{'W', 'A', 'V', 'E'});
+        h.put(new byte[]{'f', 'm', 't', ' '}).putInt(16)
+                .putShort((short) 1)                          // WAVE_FORMAT_PCM
+                .putShort((short) CHANNELS)
+                .putInt(sampleRate)
+                .putInt(sampleRate * FRAME_BYTES)             // byte rate
+                .putShort((short) FRAME_BYTES)                // block align
+                .putShort((short) 16);
+        h.put(new byte[]{'d', 'a', 't', 'a'}).putInt((int) dataBytes);
+        h.flip();
+        writeFully(h, 0L);
+    }
+
+    private void writeFully(ByteBuffer src, long pos) throws IOException {
+        long p = pos;
+        while (src.hasRemaining()) {
+            p += channel.write(src, p);
+        }
+    }
+}